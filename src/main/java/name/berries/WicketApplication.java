@@ -3,8 +3,6 @@ package name.berries;
 import org.apache.wicket.markup.html.WebPage;
 import org.apache.wicket.protocol.http.WebApplication;
 
-import name.berries.wicket.reflection.example.Generator;
-
 /**
  * Application object for your web application. If you want to run this application without
  * deploying, run the Start class.
@@ -30,7 +28,6 @@ public class WicketApplication extends WebApplication
 	{
 		super.init();
 
-		new Generator();
 		// add your configuration here
 	}
 }
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.extensions.jfr;
+
+/**
+ * Tells whether the JVM supports JDK Flight Recorder events. Event classes extend
+ * <code>jdk.jfr.Event</code>, which is missing on older Java 8 runtimes, so they must not be
+ * touched unless {@link #isAvailable()} returns <code>true</code>.
+ *
+ * @author rozkovec
+ */
+public final class FlightRecorderSupport
+{
+	private static final boolean AVAILABLE = detect();
+
+	private FlightRecorderSupport()
+	{
+	}
+
+	/**
+	 * @return <code>true</code> if flight recorder events can be created
+	 */
+	public static boolean isAvailable()
+	{
+		return AVAILABLE;
+	}
+
+	private static boolean detect()
+	{
+		try
+		{
+			Class.forName("jdk.jfr.Event", false, FlightRecorderSupport.class.getClassLoader());
+			return true;
+		}
+		catch (ClassNotFoundException | LinkageError e)
+		{
+			return false;
+		}
+	}
+}
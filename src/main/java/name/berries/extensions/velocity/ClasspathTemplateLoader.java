@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.extensions.velocity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.velocity.exception.ResourceNotFoundException;
+import org.apache.velocity.runtime.resource.Resource;
+import org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader;
+import org.apache.wicket.util.io.Connections;
+import org.apache.wicket.util.time.Time;
+
+/**
+ * {@link ClasspathResourceLoader} that is able to tell when the template source was modified, so
+ * the templates cached by the engine can be reloaded when modification checking is turned on.
+ * <p>
+ * When the directory of the template contains {@link TemplateIndex}, the template is served from
+ * the index, so the whole template set is read from the classpath only once. The index is resolved
+ * once per directory and checked for modification only by {@link #isSourceModified(Resource)}.
+ * <p>
+ * When modification checking is turned on, a loose template newer than the index is served
+ * instead of its packed copy, so a template edited and copied to the classpath by an IDE is
+ * picked up without packing the templates again.
+ *
+ * @author rozkovec
+ */
+public class ClasspathTemplateLoader extends ClasspathResourceLoader
+{
+	/** resolved indexes by directory, including directories without index */
+	private final ConcurrentMap<String, PackedDirectory> indexes = new ConcurrentHashMap<String, PackedDirectory>();
+
+	@Override
+	public InputStream getResourceStream(String name) throws ResourceNotFoundException
+	{
+		byte[] packed = getPackedTemplate(name);
+		if (packed != null)
+		{
+			return new ByteArrayInputStream(packed);
+		}
+		return super.getResourceStream(name);
+	}
+
+	@Override
+	public boolean isSourceModified(Resource resource)
+	{
+		String directory = getDirectory(resource.getName());
+		PackedDirectory packed = indexes.get(directory);
+		if (packed != null && packed.url != null && getLastModified(packed.url) != packed.lastModified)
+		{
+			// read again on the next access
+			indexes.remove(directory, packed);
+		}
+		return getLastModified(resource) != resource.getLastModified();
+	}
+
+	@Override
+	public long getLastModified(Resource resource)
+	{
+		String name = resource.getName();
+		PackedDirectory packed = getPackedDirectory(getDirectory(name));
+		if (packed.get(name) != null)
+		{
+			if (isModificationCheckOn())
+			{
+				return Math.max(packed.lastModified, getLastModified(getResource(name)));
+			}
+			return packed.lastModified;
+		}
+		return getLastModified(getResource(name));
+	}
+
+	private byte[] getPackedTemplate(String name)
+	{
+		PackedDirectory packed = getPackedDirectory(getDirectory(name));
+		byte[] template = packed.get(name);
+		if (template != null && isModificationCheckOn() &&
+			getLastModified(getResource(name)) > packed.lastModified)
+		{
+			// edited since the templates were packed
+			return null;
+		}
+		return template;
+	}
+
+	private boolean isModificationCheckOn()
+	{
+		return getModificationCheckInterval() > 0;
+	}
+
+	private PackedDirectory getPackedDirectory(String directory)
+	{
+		PackedDirectory packed = indexes.get(directory);
+		if (packed == null)
+		{
+			packed = readIndex(directory);
+			indexes.put(directory, packed);
+		}
+		return packed;
+	}
+
+	private PackedDirectory readIndex(String directory)
+	{
+		URL url = getResource(directory + TemplateIndex.INDEX_NAME);
+		if (url == null)
+		{
+			return new PackedDirectory(directory, null, null, 0);
+		}
+
+		long lastModified = getLastModified(url);
+		try (InputStream in = url.openStream())
+		{
+			return new PackedDirectory(directory, url, TemplateIndex.read(in), lastModified);
+		}
+		catch (IOException e)
+		{
+			// broken index, use the loose templates until the index is modified
+			return new PackedDirectory(directory, url, null, lastModified);
+		}
+	}
+
+	private static String getDirectory(String name)
+	{
+		return name.substring(0, name.lastIndexOf('/') + 1);
+	}
+
+	private static long getLastModified(URL url)
+	{
+		if (url == null)
+		{
+			return 0;
+		}
+		try
+		{
+			Time lastModified = Connections.getLastModified(url);
+			return lastModified != null ? lastModified.getMilliseconds() : 0;
+		}
+		catch (IOException e)
+		{
+			return 0;
+		}
+	}
+
+	private URL getResource(String name)
+	{
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		URL url = loader != null ? loader.getResource(name) : null;
+		if (url == null)
+		{
+			url = getClass().getClassLoader().getResource(name);
+		}
+		return url;
+	}
+
+	/**
+	 * Index resolved on the classpath
+	 */
+	private static final class PackedDirectory
+	{
+		private final String directory;
+		private final URL url;
+		private final TemplateIndex index;
+		private final long lastModified;
+
+		private PackedDirectory(String directory, URL url, TemplateIndex index, long lastModified)
+		{
+			this.directory = directory;
+			this.url = url;
+			this.index = index;
+			this.lastModified = lastModified;
+		}
+
+		private byte[] get(String name)
+		{
+			return index != null ? index.get(name.substring(directory.length())) : null;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.extensions.velocity;
+
+import org.apache.velocity.runtime.RuntimeServices;
+import org.apache.velocity.runtime.log.LogChute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Forwards Velocity log to slf4j. Velocity logs every resource lookup on info level, which is
+ * only noise when generating many files, so its info messages are logged as debug.
+ *
+ * @author rozkovec
+ */
+public class Slf4jLogChute implements LogChute
+{
+	private static final Logger logger = LoggerFactory.getLogger(VelocityUtil.class);
+
+	@Override
+	public void init(RuntimeServices rs)
+	{
+	}
+
+	@Override
+	public void log(int level, String message)
+	{
+		log(level, message, null);
+	}
+
+	@Override
+	public void log(int level, String message, Throwable t)
+	{
+		switch (level)
+		{
+			case ERROR_ID :
+				logger.error(message, t);
+				break;
+			case WARN_ID :
+				logger.warn(message, t);
+				break;
+			case INFO_ID :
+			case DEBUG_ID :
+				logger.debug(message, t);
+				break;
+			default :
+				logger.trace(message, t);
+				break;
+		}
+	}
+
+	@Override
+	public boolean isLevelEnabled(int level)
+	{
+		switch (level)
+		{
+			case ERROR_ID :
+				return logger.isErrorEnabled();
+			case WARN_ID :
+				return logger.isWarnEnabled();
+			case INFO_ID :
+			case DEBUG_ID :
+				return logger.isDebugEnabled();
+			default :
+				return logger.isTraceEnabled();
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.extensions.velocity;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * All templates of one directory packed into a single resource, so that a template set is read
+ * from the classpath at once instead of file by file. The index is stored in the directory of
+ * the templates as {@value #INDEX_NAME}.
+ *
+ * @author rozkovec
+ * @see TemplatePacker
+ */
+public final class TemplateIndex
+{
+	/** name of the index resource in the template directory */
+	public static final String INDEX_NAME = "templates.idx";
+
+	private static final int MAGIC = 0x54504c58;
+	private static final int VERSION = 1;
+
+	private final Map<String, byte[]> templates;
+
+	private TemplateIndex(Map<String, byte[]> templates)
+	{
+		this.templates = Collections.unmodifiableMap(templates);
+	}
+
+	/**
+	 * @param name
+	 *            file name of the template
+	 * @return content of the template or <code>null</code> if it is not in the index
+	 */
+	public byte[] get(String name)
+	{
+		return templates.get(name);
+	}
+
+	/**
+	 * @return content of all templates by file name
+	 */
+	public Map<String, byte[]> getTemplates()
+	{
+		return templates;
+	}
+
+	/**
+	 * Reads the index, the stream is not closed.
+	 *
+	 * @param in
+	 * @return index
+	 * @throws IOException
+	 */
+	public static TemplateIndex read(InputStream in) throws IOException
+	{
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if (data.readInt() != MAGIC || data.readInt() != VERSION)
+		{
+			throw new IOException("Not a template index.");
+		}
+
+		int count = data.readInt();
+		Map<String, byte[]> templates = new LinkedHashMap<String, byte[]>(count * 2);
+		for (int i = 0; i < count; i++)
+		{
+			String name = data.readUTF();
+			byte[] content = new byte[data.readInt()];
+			data.readFully(content);
+			templates.put(name, content);
+		}
+		return new TemplateIndex(templates);
+	}
+
+	/**
+	 * Writes the index, the stream is not closed.
+	 *
+	 * @param templates
+	 *            content of the templates by file name
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void write(Map<String, byte[]> templates, OutputStream out) throws IOException
+	{
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(templates.size());
+		for (Map.Entry<String, byte[]> template : templates.entrySet())
+		{
+			data.writeUTF(template.getKey());
+			data.writeInt(template.getValue().length);
+			data.write(template.getValue());
+		}
+		data.flush();
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.extensions.velocity;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.RuntimeConstants;
+
+/**
+ * Packs templates of a directory into {@link TemplateIndex}. Every template is parsed first, so a
+ * broken template fails the build instead of the first generation.
+ * <p>
+ * Usage: <code>TemplatePacker &lt;classes directory&gt; &lt;template directory&gt;...</code>, where
+ * template directories are relative to the classes directory, e.g.
+ * <code>name/berries/wicket/reflection/templates/bootstrap/horizontal</code>.
+ *
+ * @author rozkovec
+ */
+public final class TemplatePacker
+{
+	private static final String TEMPLATE_SUFFIX = ".tmpl";
+
+	private TemplatePacker()
+	{
+	}
+
+	/**
+	 * @param args
+	 * @throws IllegalArgumentException
+	 *             if the classes directory or template directories are missing
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		if (args.length < 2)
+		{
+			throw new IllegalArgumentException("Usage: TemplatePacker <classes directory> <template directory>...");
+		}
+
+		Path root = Paths.get(args[0]);
+		for (int i = 1; i < args.length; i++)
+		{
+			Path directory = root.resolve(args[i]);
+			int count = pack(directory);
+			System.out.println("Packed " + count + " templates into " + directory.resolve(TemplateIndex.INDEX_NAME));
+		}
+	}
+
+	/**
+	 * Packs all templates of the directory, subdirectories are not included.
+	 *
+	 * @param directory
+	 * @return number of packed templates
+	 * @throws IOException
+	 */
+	public static int pack(Path directory) throws IOException
+	{
+		RuntimeInstance velocity = new RuntimeInstance();
+		velocity.setProperty(RuntimeConstants.RUNTIME_LOG_LOGSYSTEM, new Slf4jLogChute());
+		try
+		{
+			velocity.init();
+		}
+		catch (Exception e)
+		{
+			throw new IllegalStateException(e);
+		}
+
+		Map<String, byte[]> templates = new TreeMap<String, byte[]>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + TEMPLATE_SUFFIX))
+		{
+			for (Path file : files)
+			{
+				String name = file.getFileName().toString();
+				try (InputStreamReader reader = new InputStreamReader(Files.newInputStream(file),
+					VelocityUtil.ENCODING))
+				{
+					velocity.parse(reader, name);
+				}
+				catch (Exception e)
+				{
+					throw new IllegalStateException("Invalid template " + file, e);
+				}
+				templates.put(name, Files.readAllBytes(file));
+			}
+		}
+
+		try (OutputStream out = Files.newOutputStream(directory.resolve(TemplateIndex.INDEX_NAME)))
+		{
+			TemplateIndex.write(templates, out);
+		}
+		return templates.size();
+	}
+}
@@ -18,58 +18,277 @@ package name.berries.extensions.velocity;
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FilterWriter;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.util.Map;
+import java.util.Properties;
 
+import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.Velocity;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.RuntimeConstants;
 import org.apache.wicket.core.util.resource.WebExternalResourceStream;
 import org.apache.wicket.request.resource.ContextRelativeResourceReference;
 import org.apache.wicket.util.file.File;
 import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Packages;
 import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
-import org.apache.wicket.util.template.PackageTextTemplate;
 import org.apache.wicket.velocity.markup.html.VelocityPanel;
 
+import name.berries.extensions.jfr.FlightRecorderSupport;
+
 
 /**
+ * Renders velocity templates using its own {@link VelocityEngine}, so that several instances with
+ * different configuration can be used side by side in one JVM. Package templates are loaded from
+ * classpath by the engine and parsed only once, subsequent calls reuse the cached template.
+ * <p>
  * Code borrowed from {@link VelocityPanel}.
  *
  * @author rozkovec
  */
 public class VelocityUtil
 {
+	/** encoding of templates and generated output */
+	public static final String ENCODING = "UTF-8";
+
+	private static final String CLASS_LOADER = "class";
+
+	private final VelocityEngine engine;
+
+	private final boolean checkTemplateModifications;
+	private final Properties properties;
+
 	/**
-	 * Evaluates the template and returns the result. Code borrowed from {@link VelocityPanel}
+	 * Construct.
+	 */
+	public VelocityUtil()
+	{
+		this(false);
+	}
+
+	/**
+	 * Construct.
 	 *
-	 * @param templateFileName
+	 * @param checkTemplateModifications
+	 *            when <code>true</code>, cached templates are checked for modification of their
+	 *            source and reparsed if needed. Useful while developing templates.
+	 */
+	public VelocityUtil(boolean checkTemplateModifications)
+	{
+		this(checkTemplateModifications, new Properties());
+	}
+
+	/**
+	 * Construct.
+	 *
+	 * @param checkTemplateModifications
+	 *            when <code>true</code>, cached templates are checked for modification of their
+	 *            source and reparsed if needed. Useful while developing templates.
+	 * @param properties
+	 *            additional engine configuration, overrides the defaults
+	 */
+	public VelocityUtil(boolean checkTemplateModifications, Properties properties)
+	{
+		this.checkTemplateModifications = checkTemplateModifications;
+		this.properties = new Properties();
+		this.properties.putAll(properties);
+
+		Properties config = newDefaultConfiguration(checkTemplateModifications);
+		config.putAll(properties);
+
+		engine = new VelocityEngine();
+		for (String key : config.stringPropertyNames())
+		{
+			engine.setProperty(key, config.getProperty(key));
+		}
+		if (config.containsKey(RuntimeConstants.RUNTIME_LOG_LOGSYSTEM) == false)
+		{
+			engine.setProperty(RuntimeConstants.RUNTIME_LOG_LOGSYSTEM, new Slf4jLogChute());
+		}
+
+		try
+		{
+			engine.init();
+		}
+		catch (Exception e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static Properties newDefaultConfiguration(boolean checkTemplateModifications)
+	{
+		Properties config = new Properties();
+
+		config.setProperty(RuntimeConstants.RESOURCE_LOADER, CLASS_LOADER);
+		config.setProperty(CLASS_LOADER + ".resource.loader.class", ClasspathTemplateLoader.class.getName());
+		config.setProperty(CLASS_LOADER + ".resource.loader.cache", "true");
+		config.setProperty(CLASS_LOADER + ".resource.loader.modificationCheckInterval",
+			checkTemplateModifications ? "2" : "0");
+		// unbounded cache, template sets are small
+		config.setProperty(RuntimeConstants.RESOURCE_MANAGER_DEFAULTCACHE_SIZE, "0");
+
+		config.setProperty(RuntimeConstants.INPUT_ENCODING, ENCODING);
+		config.setProperty(RuntimeConstants.OUTPUT_ENCODING, ENCODING);
+
+		// no global macro library lookups and no warnings for every null reference
+		config.setProperty(RuntimeConstants.VM_LIBRARY, "");
+		config.setProperty(RuntimeConstants.RUNTIME_LOG_REFERENCE_LOG_INVALID, "false");
+
+		return config;
+	}
+
+	/**
+	 * Creates velocity with the same configuration and an empty template cache, e.g. to read
+	 * changed templates again when their modifications are not checked.
+	 *
+	 * @return new instance
+	 */
+	public VelocityUtil newInstance()
+	{
+		return new VelocityUtil(checkTemplateModifications, properties);
+	}
+
+	/**
+	 * Gets engine.
+	 *
+	 * @return engine
+	 */
+	public VelocityEngine getEngine()
+	{
+		return engine;
+	}
+
+	/**
+	 * Returns parsed template. Template is read and parsed only on first use, then it is served
+	 * from the engine cache.
+	 *
+	 * @param templateReferenceClass
+	 * @param templatePath
+	 *            path relative to the package of the reference class
+	 * @return parsed template
+	 */
+	public Template getTemplate(Class<?> templateReferenceClass, String templatePath)
+	{
+		try
+		{
+			return engine.getTemplate(Packages.absolutePath(templateReferenceClass, templatePath), ENCODING);
+		}
+		catch (Exception e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Evaluates the template and returns the result.
+	 *
+	 * @param templatePath
 	 * @param map
 	 * @param templateReferenceClass
+	 *
+	 * @return the result of evaluating the velocity template
+	 */
+	public String evaluate(String templatePath, Map<?, ?> map, Class<?> templateReferenceClass)
+	{
+		StringWriter writer = new StringWriter();
+		evaluate(templatePath, map, templateReferenceClass, writer);
+		return writer.toString();
+	}
+
+	/**
+	 * Evaluates the template and streams the result into the given writer, so the output does not
+	 * have to be kept in memory. The writer is flushed, but not closed.
+	 *
 	 * @param templatePath
+	 * @param map
+	 * @param templateReferenceClass
+	 * @param writer
+	 * @return number of characters written
+	 */
+	public long evaluate(String templatePath, Map<?, ?> map, Class<?> templateReferenceClass, Writer writer)
+	{
+		TemplateEvaluationEvent event = FlightRecorderSupport.isAvailable() ? TemplateEvaluationEvent.start() : null;
+		CountingWriter counter = new CountingWriter(writer);
+
+		Template template = getTemplate(templateReferenceClass, templatePath);
+
+		final VelocityContext ctx = new VelocityContext(map);
+		try
+		{
+			template.merge(ctx, counter);
+			counter.flush();
+		}
+		catch (Exception e)
+		{
+			throw new IllegalStateException(e);
+		}
+
+		if (event != null)
+		{
+			event.commit(templatePath, counter.count);
+		}
+		return counter.count;
+	}
+
+	/**
+	 * Evaluates the template and returns the result. Code borrowed from {@link VelocityPanel}
+	 *
+	 * @param logTag
+	 * @param map
+	 * @param reader
 	 *
 	 * @return the result of evaluating the velocity template
 	 */
-	public static String evaluateVelocityTemplate(String templatePath, Map<?, ?> map, Class<?> templateReferenceClass)
+	public String evaluate(String logTag, Map<?, ?> map, Reader reader)
 	{
 		String evaluatedTemplate = null;
 
-		PackageTextTemplate textTemplate = new PackageTextTemplate(templateReferenceClass, templatePath);
+		// create a Velocity context object using the model if set
+		final VelocityContext ctx = new VelocityContext(map);
 
-		String template = textTemplate.asString();
-		StringReader reader = new StringReader(template);
+		// create a writer for capturing the Velocity output
+		StringWriter writer = new StringWriter();
 
+		// string to be used as the template name for log messages in case
+		// of error
 		try
 		{
-			textTemplate.close();
-			return evaluateVelocityTemplate(templatePath, map, reader);
+			// execute the velocity script and capture the output in writer
+			engine.evaluate(ctx, writer, logTag, reader);
+
+			// replace the tag's body the Velocity output
+			evaluatedTemplate = writer.toString();
+
+			return evaluatedTemplate;
 		}
 		catch (Exception e)
 		{
 			throw new IllegalStateException(e);
 		}
+		finally
+		{
+			IOUtils.closeQuietly(reader);
+		}
+	}
+
+	/**
+	 * Evaluates the template with the shared default instance and returns the result.
+	 *
+	 * @param templatePath
+	 * @param map
+	 * @param templateReferenceClass
+	 *
+	 * @return the result of evaluating the velocity template
+	 */
+	public static String evaluateVelocityTemplate(String templatePath, Map<?, ?> map, Class<?> templateReferenceClass)
+	{
+		return DefaultInstance.INSTANCE.evaluate(templatePath, map, templateReferenceClass);
 	}
 
 	/**
@@ -118,7 +337,7 @@ public class VelocityUtil
 	}
 
 	/**
-	 * Evaluates the template and returns the result. Code borrowed from {@link VelocityPanel}
+	 * Evaluates the template with the shared default instance and returns the result.
 	 *
 	 * @param logTag
 	 * @param map
@@ -128,33 +347,48 @@ public class VelocityUtil
 	 */
 	public static String evaluateVelocityTemplate(String logTag, Map<?, ?> map, Reader reader)
 	{
-		String evaluatedTemplate = null;
+		return DefaultInstance.INSTANCE.evaluate(logTag, map, reader);
+	}
 
-		// create a Velocity context object using the model if set
-		final VelocityContext ctx = new VelocityContext(map);
+	/**
+	 * Lazily created instance used by the static methods
+	 */
+	private static final class DefaultInstance
+	{
+		private static final VelocityUtil INSTANCE = new VelocityUtil();
+	}
 
-		// create a writer for capturing the Velocity output
-		StringWriter writer = new StringWriter();
+	/**
+	 * Counts characters written to the delegate.
+	 */
+	private static final class CountingWriter extends FilterWriter
+	{
+		private long count;
 
-		// string to be used as the template name for log messages in case
-		// of error
-		try
+		private CountingWriter(Writer out)
 		{
-			// execute the velocity script and capture the output in writer
-			Velocity.evaluate(ctx, writer, logTag, reader);
-
-			// replace the tag's body the Velocity output
-			evaluatedTemplate = writer.toString();
+			super(out);
+		}
 
-			return evaluatedTemplate;
+		@Override
+		public void write(int c) throws IOException
+		{
+			out.write(c);
+			count++;
 		}
-		catch (Exception e)
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException
 		{
-			throw new IllegalStateException(e);
+			out.write(cbuf, off, len);
+			count += len;
 		}
-		finally
+
+		@Override
+		public void write(String str, int off, int len) throws IOException
 		{
-			IOUtils.closeQuietly(reader);
+			out.write(str, off, len);
+			count += len;
 		}
 	}
 }
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.wicket.util.lang.Args;
+
+import name.berries.wicket.reflection.classfile.EntityScanner;
+
+/**
+ * Finds entity classes by name. A name is either a fully qualified class name or a package name,
+ * in which case all concrete top level classes of the package are returned, sub packages are not
+ * searched. Classes are initialized only when used by the generator.
+ * <p>
+ * With an {@link EntityScanner}, only annotated classes of a package are found and no other class
+ * of the package is loaded.
+ *
+ * @author rozkovec
+ */
+public final class ClassFinder
+{
+	private static final String CLASS_SUFFIX = ".class";
+
+	private final ClassLoader classLoader;
+	private final EntityScanner scanner;
+
+	/**
+	 * Construct.
+	 *
+	 * @param classLoader
+	 *            loader of the entity classes
+	 */
+	public ClassFinder(ClassLoader classLoader)
+	{
+		this(classLoader, null);
+	}
+
+	/**
+	 * Construct.
+	 *
+	 * @param classLoader
+	 *            loader of the entity classes
+	 * @param scanner
+	 *            selects entities of packages from their class files, may be <code>null</code>
+	 */
+	public ClassFinder(ClassLoader classLoader, EntityScanner scanner)
+	{
+		this.classLoader = Args.notNull(classLoader, "classLoader");
+		this.scanner = scanner;
+	}
+
+	/**
+	 * @param names
+	 *            class or package names
+	 * @return found classes in the order of the names, classes of a package sorted by name
+	 * @throws IllegalArgumentException
+	 *             when a name is neither a class nor a package with classes
+	 */
+	public List<Class<?>> find(Iterable<String> names)
+	{
+		List<Class<?>> classes = new ArrayList<Class<?>>();
+		for (String name : names)
+		{
+			Class<?> clazz = loadClass(name);
+			if (clazz != null)
+			{
+				classes.add(clazz);
+				continue;
+			}
+
+			List<Class<?>> found = findInPackage(name);
+			if (found.isEmpty())
+			{
+				throw new IllegalArgumentException("Neither a class nor a package with classes: " + name);
+			}
+			classes.addAll(found);
+		}
+		return classes;
+	}
+
+	/**
+	 * @param packageName
+	 * @return concrete top level classes of the package, sorted by name
+	 */
+	public List<Class<?>> findInPackage(String packageName)
+	{
+		Set<String> classNames = new TreeSet<String>();
+		String packagePath = packageName.replace('.', '/');
+		try
+		{
+			if (scanner != null)
+			{
+				return loadClasses(scanner.scanPackage(classLoader, packageName));
+			}
+
+			Enumeration<URL> roots = classLoader.getResources(packagePath);
+			while (roots.hasMoreElements())
+			{
+				URL root = roots.nextElement();
+				if ("file".equals(root.getProtocol()))
+				{
+					listDirectory(Paths.get(root.toURI()), packageName, classNames);
+				}
+				else if ("jar".equals(root.getProtocol()))
+				{
+					listJar(root, packagePath, packageName, classNames);
+				}
+			}
+		}
+		catch (IOException | URISyntaxException e)
+		{
+			throw new IllegalStateException("Unable to list package " + packageName, e);
+		}
+		return loadClasses(classNames);
+	}
+
+	private List<Class<?>> loadClasses(Collection<String> classNames)
+	{
+		List<Class<?>> classes = new ArrayList<Class<?>>(classNames.size());
+		for (String className : classNames)
+		{
+			Class<?> clazz = loadClass(className);
+			if (clazz != null && isEntity(clazz))
+			{
+				classes.add(clazz);
+			}
+		}
+		return classes;
+	}
+
+	private static void listDirectory(Path directory, String packageName, Set<String> classNames) throws IOException
+	{
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + CLASS_SUFFIX))
+		{
+			for (Path file : files)
+			{
+				addClassName(packageName, file.getFileName().toString(), classNames);
+			}
+		}
+	}
+
+	private static void listJar(URL root, String packagePath, String packageName, Set<String> classNames)
+		throws IOException
+	{
+		URLConnection connection = root.openConnection();
+		if (connection instanceof JarURLConnection == false)
+		{
+			return;
+		}
+		JarURLConnection jarConnection = (JarURLConnection)connection;
+		jarConnection.setUseCaches(false);
+		try (JarFile jar = jarConnection.getJarFile())
+		{
+			String prefix = packagePath + "/";
+			Enumeration<JarEntry> entries = jar.entries();
+			while (entries.hasMoreElements())
+			{
+				String entryName = entries.nextElement().getName();
+				if (entryName.startsWith(prefix) && entryName.indexOf('/', prefix.length()) < 0)
+				{
+					addClassName(packageName, entryName.substring(prefix.length()), classNames);
+				}
+			}
+		}
+	}
+
+	private static void addClassName(String packageName, String fileName, Set<String> classNames)
+	{
+		// nested and anonymous classes are not entities
+		if (fileName.endsWith(CLASS_SUFFIX) && fileName.indexOf('$') < 0)
+		{
+			classNames.add(packageName + "." + fileName.substring(0, fileName.length() - CLASS_SUFFIX.length()));
+		}
+	}
+
+	/**
+	 * @param clazz
+	 * @return <code>true</code> if the class is public, concrete and neither enum nor interface
+	 */
+	public static boolean isEntity(Class<?> clazz)
+	{
+		int modifiers = clazz.getModifiers();
+		return Modifier.isPublic(modifiers) && Modifier.isAbstract(modifiers) == false && clazz.isEnum() == false
+			&& clazz.isInterface() == false;
+	}
+
+	private Class<?> loadClass(String className)
+	{
+		try
+		{
+			return Class.forName(className, false, classLoader);
+		}
+		catch (ClassNotFoundException | LinkageError e)
+		{
+			return null;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of generating all components of one entity.
+ *
+ * @author rozkovec
+ */
+@Name("name.berries.EntityGeneration")
+@Label("Entity Generation")
+@Category("Wicket Code Generator")
+@StackTrace(false)
+final class EntityGenerationEvent extends jdk.jfr.Event
+{
+	@Label("Entity")
+	String entity;
+
+	@Label("Generated")
+	@Description("False if the entity was skipped as unchanged")
+	boolean generated;
+
+	/**
+	 * @return started event or <code>null</code> when the event is not recorded
+	 */
+	static EntityGenerationEvent start()
+	{
+		EntityGenerationEvent event = new EntityGenerationEvent();
+		if (event.isEnabled() == false)
+		{
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	void commit(String className, boolean generated)
+	{
+		end();
+		if (shouldCommit())
+		{
+			entity = className;
+			this.generated = generated;
+			commit();
+		}
+	}
+}
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import name.berries.wicket.reflection.annotations.IncludeField;
+import name.berries.wicket.reflection.annotations.Order;
+import name.berries.wicket.reflection.annotations.SkipField;
+import name.berries.wicket.reflection.model.AnnotationInfo;
+import name.berries.wicket.reflection.model.ClassInfo;
+import name.berries.wicket.reflection.model.FieldInfo;
+import name.berries.wicket.reflection.model.ReflectionClassReader;
+
+/**
+ * Field model of one entity. Fields are read, filtered, wrapped and sorted only once, all
+ * templates generated for the entity share the same instance.
+ *
+ * @author rozkovec
+ */
+public final class EntityMetadata
+{
+	private static final String INCLUDE_FIELD = IncludeField.class.getName();
+	private static final String SKIP_FIELD = SkipField.class.getName();
+	private static final String ORDER = Order.class.getName();
+
+	private final ClassInfo classInfo;
+	private final String classNamespace;
+
+	private final List<FieldWrapper> viewFields;
+	private final List<FieldWrapper> editFields;
+	private final List<FieldWrapper> propertiesFields;
+
+	private final String requiredImports;
+
+	private EntityMetadata(ClassInfo classInfo)
+	{
+		this.classInfo = classInfo;
+		classNamespace = ReflectionUtil.getClassNamespace(classInfo);
+
+		List<FieldInfo> declaredFields = classInfo.getFields();
+		boolean includeAnnotationPresent = false;
+		for (FieldInfo field : declaredFields)
+		{
+			if (field.getAnnotation(INCLUDE_FIELD) != null)
+			{
+				includeAnnotationPresent = true;
+				break;
+			}
+		}
+
+		List<SortKey> candidates = new ArrayList<SortKey>(declaredFields.size());
+		for (int i = 0; i < declaredFields.size(); i++)
+		{
+			FieldInfo field = declaredFields.get(i);
+			if (field.isStaticOrTransient())
+			{
+				continue;
+			}
+
+			// when annotation is present, only include fields with this annotation and no others
+			if (includeAnnotationPresent && field.getAnnotation(INCLUDE_FIELD) == null)
+			{
+				continue;
+			}
+
+			candidates.add(new SortKey(classInfo, field, i));
+		}
+
+		// view and edit fields are subsets of the same ordering, sort only once
+		Collections.sort(candidates);
+
+		List<FieldWrapper> view = new ArrayList<FieldWrapper>(candidates.size());
+		List<FieldWrapper> edit = new ArrayList<FieldWrapper>(candidates.size());
+		List<FieldWrapper> properties = new ArrayList<FieldWrapper>(candidates.size());
+
+		for (SortKey candidate : candidates)
+		{
+			FieldWrapper wrapper = candidate.wrapper;
+			properties.add(wrapper);
+
+			if (candidate.skip == null || candidate.skip.getBoolean("includeInView", false))
+			{
+				view.add(wrapper);
+			}
+			if (candidate.skip == null || candidate.skip.getBoolean("includeInEdit", false))
+			{
+				edit.add(wrapper);
+			}
+		}
+
+		Collections.sort(properties, new Comparator<FieldWrapper>()
+		{
+			@Override
+			public int compare(FieldWrapper o1, FieldWrapper o2)
+			{
+				return o1.getName().compareTo(o2.getName());
+			}
+		});
+
+		viewFields = Collections.unmodifiableList(view);
+		editFields = Collections.unmodifiableList(edit);
+		propertiesFields = Collections.unmodifiableList(properties);
+
+		Set<String> importTypes = new LinkedHashSet<String>();
+		for (FieldWrapper field : editFields)
+		{
+			if (field.isEnumeration() || field.isOfUnknownType())
+			{
+				importTypes.add(field.getFieldInfo().getTypeCanonicalName());
+			}
+		}
+		StringBuilder imports = new StringBuilder();
+		for (String type : importTypes)
+		{
+			imports.append(String.format("import %s;\n", type));
+		}
+		requiredImports = imports.toString();
+	}
+
+	/**
+	 * Reads field model of the given class.
+	 *
+	 * @param domainClass
+	 * @return entity metadata
+	 */
+	public static EntityMetadata of(Class<?> domainClass)
+	{
+		return new EntityMetadata(ReflectionClassReader.read(domainClass));
+	}
+
+	/**
+	 * Builds field model of a class read without reflection, e.g. from the compiler's element
+	 * model.
+	 *
+	 * @param classInfo
+	 * @return entity metadata
+	 */
+	public static EntityMetadata of(ClassInfo classInfo)
+	{
+		return new EntityMetadata(classInfo);
+	}
+
+	/**
+	 * @return the domain class as read
+	 */
+	public ClassInfo getClassInfo()
+	{
+		return classInfo;
+	}
+
+	/**
+	 * @return binary name of the domain class
+	 */
+	public String getClassName()
+	{
+		return classInfo.getName();
+	}
+
+	/**
+	 * @return canonical name of the domain class
+	 */
+	public String getCanonicalName()
+	{
+		return classInfo.getCanonicalName();
+	}
+
+	/**
+	 * @return simple name of the domain class
+	 */
+	public String getClassSimpleName()
+	{
+		return classInfo.getSimpleName();
+	}
+
+	/**
+	 * Gets classNamespace.
+	 *
+	 * @return class resource namespace used in .properties
+	 */
+	public String getClassNamespace()
+	{
+		return classNamespace;
+	}
+
+	/**
+	 * @return fields shown in list and view components, sorted by {@link Order}
+	 */
+	public List<FieldWrapper> getViewFields()
+	{
+		return viewFields;
+	}
+
+	/**
+	 * @return fields shown in edit component, sorted by {@link Order}
+	 */
+	public List<FieldWrapper> getEditFields()
+	{
+		return editFields;
+	}
+
+	/**
+	 * @return all fields including skipped ones, sorted by name
+	 */
+	public List<FieldWrapper> getPropertiesFields()
+	{
+		return propertiesFields;
+	}
+
+	/**
+	 * @return import statements of enums and unknown types used by edit fields
+	 */
+	public String getRequiredImports()
+	{
+		return requiredImports;
+	}
+
+	/**
+	 * Sort key of a field, captured once so that comparing does not need reflection. Fields are
+	 * sorted by {@link Order} value, fields without the annotation go last. Ties (equal
+	 * {@link Order} values or no annotation at all) are broken by declaration order and finally by
+	 * field name, so the ordering is always deterministic.
+	 */
+	private static final class SortKey implements Comparable<SortKey>
+	{
+		private final FieldWrapper wrapper;
+		private final AnnotationInfo skip;
+		private final boolean ordered;
+		private final int order;
+		private final int declarationIndex;
+
+		private SortKey(ClassInfo classInfo, FieldInfo field, int declarationIndex)
+		{
+			wrapper = JavaTypeEnum.getFieldWrapper(classInfo, field);
+			skip = field.getAnnotation(SKIP_FIELD);
+
+			AnnotationInfo orderAnnotation = field.getAnnotation(ORDER);
+			ordered = orderAnnotation != null;
+			order = ordered ? orderAnnotation.getInt("value", 0) : 0;
+			this.declarationIndex = declarationIndex;
+		}
+
+		@Override
+		public int compareTo(SortKey other)
+		{
+			if (ordered != other.ordered)
+			{
+				return ordered ? -1 : 1;
+			}
+			if (order != other.order)
+			{
+				return order < other.order ? -1 : 1;
+			}
+			if (declarationIndex != other.declarationIndex)
+			{
+				return declarationIndex < other.declarationIndex ? -1 : 1;
+			}
+			return wrapper.getName().compareTo(other.wrapper.getName());
+		}
+	}
+}
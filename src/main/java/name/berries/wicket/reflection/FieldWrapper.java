@@ -19,15 +19,16 @@ package name.berries.wicket.reflection;
 import java.io.Serializable;
 import java.lang.reflect.Field;
 
-import javax.persistence.Column;
-
 import org.apache.commons.lang3.StringUtils;
-import org.apache.wicket.markup.html.form.FormComponent;
 import org.apache.wicket.util.string.Strings;
 
 import name.berries.wicket.reflection.annotations.ClassFieldsPropertyMapping;
 import name.berries.wicket.reflection.annotations.FieldType;
 import name.berries.wicket.reflection.annotations.GenericsClass;
+import name.berries.wicket.reflection.model.AnnotationInfo;
+import name.berries.wicket.reflection.model.ClassInfo;
+import name.berries.wicket.reflection.model.FieldInfo;
+import name.berries.wicket.reflection.model.ReflectionClassReader;
 
 
 /**
@@ -37,10 +38,26 @@ public class FieldWrapper implements Serializable
 {
 	private static final long serialVersionUID = -2244305853993851880L;
 
-	private Field field;
-	private JavaTypeEnum javaType;
-	private WicketTypeEnum htmlType;
-	private String resourceNamespace;
+	/** JPA annotations are referred to by name, so that JPA is not needed to read the model */
+	static final String COLUMN = "javax.persistence.Column";
+
+	private final transient Field field;
+	private final transient FieldInfo fieldInfo;
+	private final JavaTypeEnum javaType;
+	private final WicketTypeEnum htmlType;
+	private final String resourceNamespace;
+
+	private final String name;
+	private final String resourceKey;
+	private final String resourceHelpKey;
+	private final String parentClassName;
+	private final String enumerationClass;
+	private final boolean enumeration;
+	private final String generics;
+	private final String wicketComponent;
+	private final String propertyExpression;
+	private final boolean unique;
+	private final boolean required;
 
 	/**
 	 * Construct.
@@ -51,46 +68,79 @@ public class FieldWrapper implements Serializable
 	 */
 	public FieldWrapper(Field field, JavaTypeEnum javaType, WicketTypeEnum htmlType)
 	{
-		super();
-		this.field = field;
-		this.javaType = javaType;
-		this.htmlType = htmlType;
-		resourceNamespace = ReflectionUtil.getClassNamespace(field.getDeclaringClass());
+		this(field, ReflectionClassReader.read(field.getDeclaringClass()), javaType, htmlType);
+	}
+
+	private FieldWrapper(Field field, ClassInfo declaringClass, JavaTypeEnum javaType, WicketTypeEnum htmlType)
+	{
+		this(field, declaringClass, declaringClass.getField(field.getName()), javaType, htmlType);
 	}
 
 	/**
-	 * Gets field.
+	 * Construct from a field read without reflection, {@link #getField()} returns
+	 * <code>null</code>.
 	 *
-	 * @return field
+	 * @param declaringClass
+	 * @param fieldInfo
+	 * @param javaType
+	 * @param htmlType
 	 */
-	public Field getField()
+	public FieldWrapper(ClassInfo declaringClass, FieldInfo fieldInfo, JavaTypeEnum javaType, WicketTypeEnum htmlType)
 	{
-		return field;
+		this(null, declaringClass, fieldInfo, javaType, htmlType);
 	}
 
 	/**
-	 * Gets generics.
-	 *
-	 * @return javaType
+	 * All values derived from field annotations are resolved here, so the getters used by
+	 * templates do not touch the model.
 	 */
-	public String getGenerics()
+	private FieldWrapper(Field field, ClassInfo declaringClass, FieldInfo fieldInfo, JavaTypeEnum javaType,
+		WicketTypeEnum htmlType)
+	{
+		super();
+		this.field = field;
+		this.fieldInfo = fieldInfo;
+		this.javaType = javaType;
+		this.htmlType = htmlType;
+
+		resourceNamespace = ReflectionUtil.getClassNamespace(declaringClass);
+		parentClassName = declaringClass.getSimpleName();
+
+		name = fieldInfo.getName();
+		resourceKey = resourceNamespace + "." + name;
+		resourceHelpKey = resourceKey + ".help";
+		enumerationClass = fieldInfo.getTypeSimpleName();
+		enumeration = JavaTypeEnum.Enum.equals(javaType) || fieldInfo.isEnumType();
+
+		generics = resolveGenerics(fieldInfo, javaType, htmlType);
+
+		AnnotationInfo fieldType = fieldInfo.getAnnotation(FieldType.class.getName());
+		wicketComponent = resolveWicketComponent(fieldType, htmlType);
+		propertyExpression = resolvePropertyExpression(fieldType, declaringClass, name);
+
+		AnnotationInfo column = fieldInfo.getAnnotation(COLUMN);
+		unique = column != null && column.getBoolean("unique", false);
+		required = column != null && column.getBoolean("nullable", true) == false;
+	}
+
+	private static String resolveGenerics(FieldInfo field, JavaTypeEnum javaType, WicketTypeEnum htmlType)
 	{
 		String generics = javaType.name();
 		if (JavaTypeEnum.Unknown.equals(javaType))
-			generics = StringUtils.capitalize(field.getType().getSimpleName());
+			generics = StringUtils.capitalize(field.getTypeSimpleName());
 		if (JavaTypeEnum.Object.equals(javaType))
-			generics = StringUtils.capitalize(field.getType().getSimpleName());
+			generics = StringUtils.capitalize(field.getTypeSimpleName());
 
-		GenericsClass annotation = field.getAnnotation(GenericsClass.class);
+		AnnotationInfo annotation = field.getAnnotation(GenericsClass.class.getName());
 		if (annotation != null)
 		{
-			Class<?> value = annotation.value();
+			String value = annotation.getString("value", Void.class.getName());
 
 			// No generics for void class
-			if (Void.class.equals(value))
+			if (Void.class.getName().equals(value))
 				return "";
 
-			generics = value.getSimpleName();
+			generics = ClassInfo.getSimpleName(value);
 		}
 		else
 		{
@@ -108,7 +158,7 @@ public class FieldWrapper implements Serializable
 					generics = JavaTypeEnum.String.name();
 					break;
 				case Enum :
-					generics = getEnumerationClass();
+					generics = field.getTypeSimpleName();
 					break;
 
 				default :
@@ -118,6 +168,65 @@ public class FieldWrapper implements Serializable
 		return String.format("<%s>", generics);
 	}
 
+	private static String resolveWicketComponent(AnnotationInfo annotation, WicketTypeEnum htmlType)
+	{
+		if (annotation != null)
+		{
+			String formComponentClass = annotation.getString("fieldFormComponentClass", null);
+
+			if (formComponentClass != null
+				&& UnknownComponent.class.getCanonicalName().equals(formComponentClass) == false)
+			{
+				return ClassInfo.getSimpleName(formComponentClass);
+			}
+		}
+		return htmlType.getWicketComponent();
+	}
+
+	private static String resolvePropertyExpression(AnnotationInfo annotation, ClassInfo declaringClass,
+		String name)
+	{
+		String propertyExpression = annotation != null ? annotation.getString("propertyExpression", null) : null;
+		AnnotationInfo propertyMapping = declaringClass.getAnnotation(ClassFieldsPropertyMapping.class.getName());
+		if (Strings.isEmpty(propertyExpression) == false)
+		{
+			return propertyExpression;
+		}
+		else if (propertyMapping != null)
+		{
+			return String.format("%s.%s", propertyMapping.getString("value", ""), name);
+		}
+		return name;
+	}
+
+	/**
+	 * Gets field.
+	 *
+	 * @return field or <code>null</code> when the field was not read by reflection
+	 */
+	public Field getField()
+	{
+		return field;
+	}
+
+	/**
+	 * @return field as read from the class, regardless of how it was read
+	 */
+	public FieldInfo getFieldInfo()
+	{
+		return fieldInfo;
+	}
+
+	/**
+	 * Gets generics.
+	 *
+	 * @return javaType
+	 */
+	public String getGenerics()
+	{
+		return generics;
+	}
+
 	/**
 	 * Gets javaType.
 	 *
@@ -125,7 +234,7 @@ public class FieldWrapper implements Serializable
 	 */
 	public String getParentClassName()
 	{
-		return field.getDeclaringClass().getSimpleName();
+		return parentClassName;
 	}
 
 	/**
@@ -163,18 +272,7 @@ public class FieldWrapper implements Serializable
 	 */
 	public String getWicketComponent()
 	{
-		FieldType annotation = field.getAnnotation(FieldType.class);
-		if (annotation != null)
-		{
-			Class<? extends FormComponent> formComponentClass = annotation
-				.fieldFormComponentClass();
-
-			if (UnknownComponent.class.equals(formComponentClass) == false)
-			{
-				return formComponentClass.getSimpleName();
-			}
-		}
-		return getHtmlType().getWicketComponent();
+		return wicketComponent;
 	}
 
 	/**
@@ -182,7 +280,7 @@ public class FieldWrapper implements Serializable
 	 */
 	public String getName()
 	{
-		return field.getName();
+		return name;
 	}
 
 	/**
@@ -190,21 +288,7 @@ public class FieldWrapper implements Serializable
 	 */
 	public String getPropertyExpression()
 	{
-		FieldType annotation = field.getAnnotation(FieldType.class);
-		if (annotation != null && Strings.isEmpty(annotation.propertyExpression()) == false)
-		{
-			return annotation.propertyExpression();
-		}
-		else
-		{
-			ClassFieldsPropertyMapping propertyAnnotation = field.getDeclaringClass()
-				.getAnnotation(ClassFieldsPropertyMapping.class);
-			if (propertyAnnotation != null)
-			{
-				return String.format("%s.%s", propertyAnnotation.value(), field.getName());
-			}
-		}
-		return getName();
+		return propertyExpression;
 	}
 
 	/**
@@ -228,7 +312,7 @@ public class FieldWrapper implements Serializable
 	 */
 	public String getResourceKey()
 	{
-		return resourceNamespace + "." + getName();
+		return resourceKey;
 	}
 
 	/**
@@ -236,7 +320,7 @@ public class FieldWrapper implements Serializable
 	 */
 	public String getResourceHelpKey()
 	{
-		return resourceNamespace + "." + getName() + ".help";
+		return resourceHelpKey;
 	}
 
 	/**
@@ -252,7 +336,7 @@ public class FieldWrapper implements Serializable
 	 */
 	public boolean isEnumeration()
 	{
-		return JavaTypeEnum.Enum.equals(javaType) || field.getType().isEnum();
+		return enumeration;
 	}
 
 	/**
@@ -260,12 +344,7 @@ public class FieldWrapper implements Serializable
 	 */
 	public boolean isUnique()
 	{
-		Column annotation = field.getAnnotation(Column.class);
-		if (annotation != null && annotation.unique())
-		{
-			return true;
-		}
-		return false;
+		return unique;
 	}
 
 	/**
@@ -273,12 +352,7 @@ public class FieldWrapper implements Serializable
 	 */
 	public boolean isRequired()
 	{
-		Column annotation = field.getAnnotation(Column.class);
-		if (annotation != null && annotation.nullable() == false)
-		{
-			return true;
-		}
-		return false;
+		return required;
 	}
 
 	/**
@@ -286,7 +360,6 @@ public class FieldWrapper implements Serializable
 	 */
 	public String getEnumerationClass()
 	{
-		return field.getType().getSimpleName();
+		return enumerationClass;
 	}
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of writing one generated file into the output sink.
+ *
+ * @author rozkovec
+ */
+@Name("name.berries.FileWrite")
+@Label("Generated File Write")
+@Category("Wicket Code Generator")
+@StackTrace(false)
+final class FileWriteEvent extends jdk.jfr.Event
+{
+	@Label("Path")
+	String path;
+
+	@Label("Length")
+	@Description("Length of the content in characters")
+	long length;
+
+	@Label("Written")
+	@Description("False if the content did not change and the file was not written")
+	boolean written;
+
+	/**
+	 * @return started event or <code>null</code> when the event is not recorded
+	 */
+	static FileWriteEvent start()
+	{
+		FileWriteEvent event = new FileWriteEvent();
+		if (event.isEnabled() == false)
+		{
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	void commit(String path, long length, boolean written)
+	{
+		end();
+		if (shouldCommit())
+		{
+			this.path = path;
+			this.length = length;
+			this.written = written;
+			commit();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+/**
+ * Receives events of the generation, e.g. to find out where the time goes. Times are in
+ * nanoseconds, lengths in characters.
+ * <p>
+ * Listeners are called from the threads doing the work, implementations must be thread safe and
+ * fast.
+ *
+ * @author rozkovec
+ * @see GenerationReport
+ */
+public interface GenerationListener
+{
+	/**
+	 * Field model of the entity was read.
+	 *
+	 * @param className
+	 *            name of the entity class
+	 * @param fieldCount
+	 *            number of fields in the model
+	 * @param nanos
+	 */
+	default void onMetadata(String className, int fieldCount, long nanos)
+	{
+	}
+
+	/**
+	 * Template was rendered.
+	 *
+	 * @param className
+	 *            name of the entity class
+	 * @param template
+	 *            path of the template
+	 * @param length
+	 *            length of the result
+	 * @param nanos
+	 */
+	default void onRender(String className, String template, int length, long nanos)
+	{
+	}
+
+	/**
+	 * File was written.
+	 *
+	 * @param path
+	 *            path of the file in the output
+	 * @param length
+	 *            length of the content
+	 * @param nanos
+	 */
+	default void onWrite(String path, int length, long nanos)
+	{
+	}
+
+	/**
+	 * File was not written, because its content did not change. Files of entities skipped as
+	 * unchanged by the {@link ReflectionUtil#setIncremental(boolean) incremental} mode are not
+	 * rendered at all, they are reported with zero length and time. {@link GenerationStatistics}
+	 * count the same files as skipped.
+	 *
+	 * @param path
+	 *            path of the file in the output
+	 * @param length
+	 *            length of the content, <code>0</code> if it was not rendered
+	 * @param nanos
+	 *            time spent comparing the content
+	 */
+	default void onSkip(String path, int length, long nanos)
+	{
+	}
+
+	/**
+	 * All components of the entity were created, or skipped as unchanged.
+	 *
+	 * @param className
+	 *            name of the entity class
+	 * @param generated
+	 *            <code>false</code> if the entity was skipped
+	 * @param nanos
+	 */
+	default void onEntity(String className, boolean generated, long nanos)
+	{
+	}
+
+	/**
+	 * Merged properties were written.
+	 *
+	 * @param entities
+	 *            number of merged entities
+	 * @param length
+	 *            length of the merged properties
+	 * @param nanos
+	 */
+	default void onMerge(int entities, int length, long nanos)
+	{
+	}
+}
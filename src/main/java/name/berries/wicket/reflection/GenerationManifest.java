@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.wicket.util.lang.Packages;
+
+import name.berries.wicket.reflection.model.AnnotationInfo;
+import name.berries.wicket.reflection.output.OutputSink;
+
+/**
+ * Fingerprints of the generated entities, stored with the generated files. An entity whose
+ * fingerprint did not change since the last run does not have to be generated again.
+ * <p>
+ * Fingerprint covers the field model of the entity, the annotations of its fields, the factory
+ * class and the content of the templates, so a change of any of them triggers regeneration.
+ *
+ * @author rozkovec
+ */
+final class GenerationManifest
+{
+	/** path of the manifest in the output */
+	static final String FILE_NAME = ".reflection-manifest";
+
+	private final ConcurrentMap<String, String> fingerprints = new ConcurrentHashMap<String, String>();
+
+	private GenerationManifest()
+	{
+	}
+
+	/**
+	 * Reads manifest from the given output, missing or unreadable manifest is empty.
+	 *
+	 * @param sink
+	 * @return manifest
+	 */
+	static GenerationManifest load(OutputSink sink)
+	{
+		GenerationManifest manifest = new GenerationManifest();
+		Properties properties = new Properties();
+		try
+		{
+			CharSequence content = sink.read(FILE_NAME, StandardCharsets.UTF_8);
+			if (content == null)
+			{
+				return manifest;
+			}
+			properties.load(new StringReader(content.toString()));
+		}
+		catch (IOException e)
+		{
+			// everything is regenerated
+			return manifest;
+		}
+		for (String className : properties.stringPropertyNames())
+		{
+			manifest.fingerprints.put(className, properties.getProperty(className));
+		}
+		return manifest;
+	}
+
+	/**
+	 * @param className
+	 * @param fingerprint
+	 * @return <code>true</code> if the entity was generated with the same fingerprint
+	 */
+	boolean isUpToDate(String className, String fingerprint)
+	{
+		return fingerprint.equals(fingerprints.get(className));
+	}
+
+	/**
+	 * @param className
+	 * @param fingerprint
+	 */
+	void put(String className, String fingerprint)
+	{
+		fingerprints.put(className, fingerprint);
+	}
+
+	/**
+	 * @param className
+	 */
+	void remove(String className)
+	{
+		fingerprints.remove(className);
+	}
+
+	/**
+	 * @return names of the classes in the manifest
+	 */
+	Set<String> getClassNames()
+	{
+		return new TreeSet<String>(fingerprints.keySet());
+	}
+
+	/**
+	 * Writes the manifest, entries are sorted so that the file does not change when fingerprints
+	 * do not.
+	 */
+	synchronized void store(OutputSink sink)
+	{
+		StringBuilder content = new StringBuilder("# generated by ReflectionUtil, delete to regenerate everything\n");
+		for (Map.Entry<String, String> entry : new TreeMap<String, String>(fingerprints).entrySet())
+		{
+			content.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+		}
+		try
+		{
+			sink.write(FILE_NAME, content, StandardCharsets.UTF_8);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Hashes content of the templates.
+	 *
+	 * @param templateReferenceClass
+	 * @param templatePath
+	 * @param templateNames
+	 * @return fingerprint of the template set
+	 */
+	static String templateFingerprint(Class<?> templateReferenceClass, String templatePath,
+		List<String> templateNames)
+	{
+		MessageDigest digest = newDigest();
+		update(digest, templateReferenceClass.getName());
+		update(digest, templatePath);
+
+		ClassLoader loader = templateReferenceClass.getClassLoader();
+		byte[] buffer = new byte[8192];
+		for (String name : templateNames)
+		{
+			update(digest, name);
+			String path = Packages.absolutePath(templateReferenceClass, templatePath + name);
+			try (InputStream in = loader.getResourceAsStream(path))
+			{
+				if (in == null)
+				{
+					continue;
+				}
+				int read;
+				while ((read = in.read(buffer)) != -1)
+				{
+					digest.update(buffer, 0, read);
+				}
+			}
+			catch (IOException e)
+			{
+				throw new RuntimeException(e);
+			}
+		}
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * Hashes everything the generated files of one entity depend on.
+	 *
+	 * @param metadata
+	 * @param factoryClassName
+	 *            may be <code>null</code>
+	 * @param outputPackage
+	 * @param templateFingerprint
+	 * @return fingerprint of the entity
+	 */
+	static String entityFingerprint(EntityMetadata metadata, String factoryClassName, String outputPackage,
+		String templateFingerprint)
+	{
+		MessageDigest digest = newDigest();
+		update(digest, templateFingerprint);
+		update(digest, outputPackage);
+		update(digest, metadata.getClassName());
+		update(digest, metadata.getClassNamespace());
+		update(digest, factoryClassName != null ? factoryClassName : "");
+		update(digest, metadata.getRequiredImports());
+
+		update(digest, "view");
+		for (FieldWrapper field : metadata.getViewFields())
+		{
+			update(digest, field);
+		}
+		update(digest, "edit");
+		for (FieldWrapper field : metadata.getEditFields())
+		{
+			update(digest, field);
+		}
+		update(digest, "properties");
+		for (FieldWrapper field : metadata.getPropertiesFields())
+		{
+			update(digest, field);
+		}
+		return toHex(digest.digest());
+	}
+
+	private static void update(MessageDigest digest, FieldWrapper field)
+	{
+		update(digest, field.getName());
+		update(digest, field.getFieldInfo().getGenericTypeName());
+		update(digest, String.valueOf(field.getJavaType()));
+		update(digest, String.valueOf(field.getHtmlType()));
+		update(digest, field.getWicketComponent());
+		update(digest, field.getPropertyExpression());
+		update(digest, field.getGenerics());
+		update(digest, field.getEnumerationClass());
+		update(digest, field.getResourceKey());
+		update(digest, field.isRequired() + "," + field.isUnique());
+
+		// order of annotations is not specified, sort them
+		List<String> annotations = new ArrayList<String>();
+		for (AnnotationInfo annotation : field.getFieldInfo().getAnnotations())
+		{
+			annotations.add(annotation.toString());
+		}
+		Collections.sort(annotations);
+		for (String annotation : annotations)
+		{
+			update(digest, annotation);
+		}
+	}
+
+	private static void update(MessageDigest digest, String value)
+	{
+		digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+		// separator, so that "ab" + "c" differs from "a" + "bc"
+		digest.update((byte)0);
+	}
+
+	private static MessageDigest newDigest()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes)
+	{
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes)
+		{
+			hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+			hex.append(Character.forDigit(b & 0xf, 16));
+		}
+		return hex.toString();
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects timings of the generation and summarizes them: time per phase, the slowest entities
+ * and templates, total length of the output and number of files written and skipped.
+ *
+ * <pre>
+ * GenerationReport report = new GenerationReport();
+ * generator.addListener(report);
+ * generator.generateAll(classes);
+ * logger.info(report.toString());
+ * </pre>
+ *
+ * @author rozkovec
+ */
+public class GenerationReport implements GenerationListener
+{
+	private static final int TOP = 10;
+
+	private final LongAdder metadataNanos = new LongAdder();
+	private final LongAdder renderNanos = new LongAdder();
+	private final LongAdder writeNanos = new LongAdder();
+	private final LongAdder mergeNanos = new LongAdder();
+
+	private final LongAdder written = new LongAdder();
+	private final LongAdder writtenLength = new LongAdder();
+	private final LongAdder skipped = new LongAdder();
+	private final LongAdder skippedLength = new LongAdder();
+
+	private final LongAdder entities = new LongAdder();
+	private final LongAdder skippedEntities = new LongAdder();
+
+	private final ConcurrentMap<String, LongAdder> entityNanos = new ConcurrentHashMap<String, LongAdder>();
+	private final ConcurrentMap<String, LongAdder> templateNanos = new ConcurrentHashMap<String, LongAdder>();
+
+	@Override
+	public void onMetadata(String className, int fieldCount, long nanos)
+	{
+		metadataNanos.add(nanos);
+	}
+
+	@Override
+	public void onRender(String className, String template, int length, long nanos)
+	{
+		renderNanos.add(nanos);
+		add(templateNanos, template, nanos);
+	}
+
+	@Override
+	public void onWrite(String path, int length, long nanos)
+	{
+		writeNanos.add(nanos);
+		written.increment();
+		writtenLength.add(length);
+	}
+
+	@Override
+	public void onSkip(String path, int length, long nanos)
+	{
+		writeNanos.add(nanos);
+		skipped.increment();
+		skippedLength.add(length);
+	}
+
+	@Override
+	public void onEntity(String className, boolean generated, long nanos)
+	{
+		entities.increment();
+		if (generated == false)
+		{
+			skippedEntities.increment();
+		}
+		add(entityNanos, className, nanos);
+	}
+
+	@Override
+	public void onMerge(int entities, int length, long nanos)
+	{
+		mergeNanos.add(nanos);
+	}
+
+	private static void add(ConcurrentMap<String, LongAdder> totals, String key, long nanos)
+	{
+		LongAdder total = totals.get(key);
+		if (total == null)
+		{
+			LongAdder created = new LongAdder();
+			total = totals.putIfAbsent(key, created);
+			if (total == null)
+			{
+				total = created;
+			}
+		}
+		total.add(nanos);
+	}
+
+	/**
+	 * @return number of files written
+	 */
+	public long getWritten()
+	{
+		return written.sum();
+	}
+
+	/**
+	 * @return number of files not written, because their content did not change
+	 */
+	public long getSkipped()
+	{
+		return skipped.sum();
+	}
+
+	/**
+	 * @return total length of all rendered files, written or not
+	 */
+	public long getTotalLength()
+	{
+		return writtenLength.sum() + skippedLength.sum();
+	}
+
+	/**
+	 * @return summary of the collected timings
+	 */
+	@Override
+	public String toString()
+	{
+		StringBuilder report = new StringBuilder(1024);
+		report.append("Generation report\n");
+		report.append(String.format("  entities: %d (%d unchanged)%n", entities.sum(), skippedEntities.sum()));
+		report.append(String.format("  files: %d written, %d skipped%n", getWritten(), getSkipped()));
+		report.append(String.format("  output: %d chars (%d written)%n", getTotalLength(), writtenLength.sum()));
+		report.append(String.format("  metadata %d ms, render %d ms, write %d ms, merge %d ms%n",
+			millis(metadataNanos.sum()), millis(renderNanos.sum()), millis(writeNanos.sum()),
+			millis(mergeNanos.sum())));
+
+		report.append("  slowest entities:\n");
+		appendSlowest(report, entityNanos);
+		report.append("  slowest templates:\n");
+		appendSlowest(report, templateNanos);
+		return report.toString();
+	}
+
+	private static void appendSlowest(StringBuilder report, Map<String, LongAdder> totals)
+	{
+		List<Map.Entry<String, Long>> sorted = new ArrayList<Map.Entry<String, Long>>(totals.size());
+		for (Map.Entry<String, LongAdder> total : totals.entrySet())
+		{
+			sorted.add(new AbstractMap.SimpleImmutableEntry<String, Long>(total.getKey(),
+				total.getValue().sum()));
+		}
+		Collections.sort(sorted, new Comparator<Map.Entry<String, Long>>()
+		{
+			@Override
+			public int compare(Map.Entry<String, Long> o1, Map.Entry<String, Long> o2)
+			{
+				return o2.getValue().compareTo(o1.getValue());
+			}
+		});
+
+		for (Map.Entry<String, Long> entry : sorted.subList(0, Math.min(TOP, sorted.size())))
+		{
+			report.append(String.format("    %8.2f ms  %s%n", entry.getValue() / 1e6, entry.getKey()));
+		}
+	}
+
+	private static long millis(long nanos)
+	{
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts of generated files. Files whose content did not change are not written at all, so their
+ * modification time stays the same and they do not trigger recompilation or markup reloading.
+ *
+ * @author rozkovec
+ */
+public final class GenerationStatistics
+{
+	private final AtomicInteger written = new AtomicInteger();
+	private final AtomicInteger skipped = new AtomicInteger();
+	private final AtomicInteger removed = new AtomicInteger();
+	private final AtomicInteger stale = new AtomicInteger();
+
+	void fileWritten()
+	{
+		written.incrementAndGet();
+	}
+
+	void fileSkipped()
+	{
+		skipped.incrementAndGet();
+	}
+
+	void fileRemoved()
+	{
+		removed.incrementAndGet();
+	}
+
+	void entityStale()
+	{
+		stale.incrementAndGet();
+	}
+
+	/**
+	 * @return number of files created or changed
+	 */
+	public int getWritten()
+	{
+		return written.get();
+	}
+
+	/**
+	 * @return number of files left untouched, because their content or their entity did not change
+	 * @see GenerationListener#onSkip(String, int, long)
+	 */
+	public int getSkipped()
+	{
+		return skipped.get();
+	}
+
+	/**
+	 * @return number of files of removed entities that were deleted
+	 */
+	public int getRemoved()
+	{
+		return removed.get();
+	}
+
+	/**
+	 * @return number of previously generated entities whose class does not exist anymore, whether
+	 *         their files were removed or kept
+	 */
+	public int getStale()
+	{
+		return stale.get();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "written " + getWritten() + ", skipped " + getSkipped() + ", removed " + getRemoved() + ", stale "
+			+ getStale();
+	}
+}
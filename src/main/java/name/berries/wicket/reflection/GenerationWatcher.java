@@ -0,0 +1,587 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import name.berries.extensions.velocity.TemplateIndex;
+import name.berries.extensions.velocity.TemplatePacker;
+import name.berries.wicket.reflection.classfile.EntityScanner;
+
+/**
+ * Keeps the generator warm and regenerates entities as their classes are compiled. Parsed
+ * templates and field models of the entities stay in memory, a changed class file is read again
+ * and only the components of its entity are rendered. A changed template regenerates all entities
+ * from their kept field models.
+ * <p>
+ * Entities are loaded from the classes directories by a new class loader for every change, so
+ * the directories must not be on the classpath of the watcher itself. Watched template
+ * directories must be on the classpath, a packed template set is packed again when one of its
+ * templates changes.
+ *
+ * <pre>
+ * try (GenerationWatcher watcher = new GenerationWatcher(generator, directories, names))
+ * {
+ *     watcher.generateAll();
+ *     watcher.run();
+ * }
+ * </pre>
+ *
+ * @author rozkovec
+ */
+public class GenerationWatcher implements Closeable
+{
+	private static final Logger logger = LoggerFactory.getLogger(GenerationWatcher.class);
+
+	/** default of {@link #setQuietMillis(long)} */
+	public static final long DEFAULT_QUIET_MILLIS = 300;
+
+	private static final String CLASS_SUFFIX = ".class";
+	private static final String TEMPLATE_SUFFIX = ".tmpl";
+
+	private final ReflectionUtil generator;
+	private final List<Path> classesDirectories;
+	private final List<String> names;
+	private final WatchService watchService;
+
+	/** watched directories by their keys */
+	private final Map<WatchKey, Path> directories = new HashMap<WatchKey, Path>();
+	private final Set<Path> templateDirectories = new HashSet<Path>();
+	/** directories of the watched packages in all classes directories, whether they exist or not */
+	private final Set<Path> packageDirectories = new HashSet<Path>();
+
+	/** packages of which all entities are generated */
+	private final Set<String> packageNames = new HashSet<String>();
+	/** entities listed by their class name */
+	private final Set<String> classNames = new HashSet<String>();
+
+	/** field models of the generated entities by class name */
+	private final Map<String, EntityMetadata> entities = new LinkedHashMap<String, EntityMetadata>();
+
+	private String factoryClassName;
+	private String factoryCanonicalName;
+	private String applicationName;
+	private EntityScanner scanner;
+	private long quietMillis = DEFAULT_QUIET_MILLIS;
+
+	/**
+	 * Construct.
+	 *
+	 * @param generator
+	 *            generator, usually in {@link ReflectionUtil#setIncremental(boolean) incremental}
+	 *            mode
+	 * @param classesDirectories
+	 *            directories of the compiled entities
+	 * @param names
+	 *            entity classes or packages, see {@link ClassFinder}
+	 * @throws IOException
+	 */
+	public GenerationWatcher(ReflectionUtil generator, List<Path> classesDirectories, List<String> names)
+		throws IOException
+	{
+		this.generator = generator;
+		this.classesDirectories = new ArrayList<Path>(classesDirectories);
+		this.names = new ArrayList<String>(names);
+		watchService = classesDirectories.get(0).getFileSystem().newWatchService();
+	}
+
+	/**
+	 * @param factoryClassName
+	 *            factory of the entities, loaded together with the entities
+	 */
+	public void setFactoryClassName(String factoryClassName)
+	{
+		this.factoryClassName = factoryClassName;
+	}
+
+	/**
+	 * @param applicationName
+	 *            when set, merged properties are written after every change
+	 * @see ReflectionUtil#createMergedProperties(String)
+	 */
+	public void setApplicationName(String applicationName)
+	{
+		this.applicationName = applicationName;
+	}
+
+	/**
+	 * @param scanner
+	 *            when set, only annotated classes are entities
+	 * @see ClassFinder#ClassFinder(ClassLoader, EntityScanner)
+	 */
+	public void setScanner(EntityScanner scanner)
+	{
+		this.scanner = scanner;
+	}
+
+	/**
+	 * Sets how long the directories must be quiet before the collected changes are handled. A build
+	 * writes its class files over a while, all of them should be handled at once, so that merged
+	 * properties are written once per build. Default is {@value #DEFAULT_QUIET_MILLIS} ms.
+	 *
+	 * @param quietMillis
+	 */
+	public void setQuietMillis(long quietMillis)
+	{
+		Args.isTrue(quietMillis >= 0, "quietMillis must not be negative");
+		this.quietMillis = quietMillis;
+	}
+
+	/**
+	 * Watches templates of the directory.
+	 *
+	 * @param directory
+	 *            template directory on the classpath
+	 * @throws IOException
+	 */
+	public void addTemplateDirectory(Path directory) throws IOException
+	{
+		Path absolute = directory.toAbsolutePath();
+		templateDirectories.add(absolute);
+		register(absolute);
+	}
+
+	/**
+	 * Generates all entities and starts watching their packages.
+	 *
+	 * @throws IOException
+	 */
+	public void generateAll() throws IOException
+	{
+		try (URLClassLoader loader = newClassLoader())
+		{
+			List<Class<?>> classes = new ClassFinder(loader, scanner).find(names);
+			Class<?> factory = factoryClassName != null ? loadClass(loader, factoryClassName) : null;
+			factoryCanonicalName = factory != null ? factory.getCanonicalName() : null;
+
+			generator.generateAll(classes, factory);
+
+			entities.clear();
+			for (Class<?> clazz : classes)
+			{
+				entities.put(clazz.getName(), EntityMetadata.of(clazz));
+			}
+			watchPackages(classes);
+		}
+		mergeProperties();
+	}
+
+	/**
+	 * Handles changes until the watcher is closed.
+	 *
+	 * @throws InterruptedException
+	 */
+	public void run() throws InterruptedException
+	{
+		try
+		{
+			while (true)
+			{
+				Changes changes = new Changes();
+				WatchKey key = watchService.take();
+				while (key != null)
+				{
+					collect(key, changes);
+					key = watchService.poll(quietMillis, TimeUnit.MILLISECONDS);
+				}
+				handle(changes);
+			}
+		}
+		catch (ClosedWatchServiceException e)
+		{
+			// closed
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		watchService.close();
+	}
+
+	private void watchPackages(List<Class<?>> classes) throws IOException
+	{
+		packageNames.clear();
+		classNames.clear();
+		packageDirectories.clear();
+		for (String name : names)
+		{
+			String packageName = name;
+			for (Class<?> clazz : classes)
+			{
+				if (clazz.getName().equals(name))
+				{
+					classNames.add(name);
+					packageName = clazz.getPackage().getName();
+					break;
+				}
+			}
+			if (classNames.contains(name) == false)
+			{
+				packageNames.add(name);
+			}
+
+			for (Path root : classesDirectories)
+			{
+				Path absoluteRoot = root.toAbsolutePath();
+				Path directory = absoluteRoot.resolve(packageName.replace('.', '/'));
+				packageDirectories.add(directory);
+				registerExisting(absoluteRoot, directory);
+			}
+		}
+	}
+
+	/**
+	 * Registers existing directories from the root down to the package directory, so that the
+	 * package directory is noticed when it is created, or created again after a clean build.
+	 */
+	private void registerExisting(Path root, Path directory) throws IOException
+	{
+		Path current = root;
+		if (Files.isDirectory(current))
+		{
+			register(current);
+			for (Path name : root.relativize(directory))
+			{
+				current = current.resolve(name);
+				if (Files.isDirectory(current) == false)
+				{
+					break;
+				}
+				register(current);
+			}
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the directory is a watched package directory or one of its
+	 *         parents
+	 */
+	private boolean isOnPackagePath(Path directory)
+	{
+		for (Path packageDirectory : packageDirectories)
+		{
+			if (packageDirectory.startsWith(directory))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Starts watching a directory created under a classes directory. Its subdirectories and class
+	 * files may have been created before it was registered, they are collected right away.
+	 */
+	private void watchCreated(Path created, Changes changes)
+	{
+		try (Stream<Path> paths = Files.walk(created))
+		{
+			for (Path path : (Iterable<Path>)paths::iterator)
+			{
+				if (Files.isDirectory(path))
+				{
+					if (isOnPackagePath(path))
+					{
+						register(path);
+					}
+				}
+				else
+				{
+					collectClass(path.getParent(), path.getFileName().toString(), changes);
+				}
+			}
+		}
+		catch (IOException | UncheckedIOException e)
+		{
+			// removed again meanwhile, the next build creates it again
+			logger.warn("Unable to watch {}: {}", created, e.toString());
+		}
+	}
+
+	private void register(Path directory) throws IOException
+	{
+		if (directories.containsValue(directory) == false)
+		{
+			directories.put(directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), directory);
+			logger.info("Watching {}", directory);
+		}
+	}
+
+	private void collect(WatchKey key, Changes changes)
+	{
+		Path directory = directories.get(key);
+		for (WatchEvent<?> event : key.pollEvents())
+		{
+			if (event.kind() == OVERFLOW)
+			{
+				changes.overflow = true;
+				continue;
+			}
+
+			Path child = directory.resolve((Path)event.context());
+			String fileName = child.getFileName().toString();
+			if (templateDirectories.contains(directory))
+			{
+				// the index is written by the packer, its own change is not a change of the templates
+				if (fileName.endsWith(TEMPLATE_SUFFIX))
+				{
+					changes.templateDirectories.add(directory);
+				}
+			}
+			else if (event.kind() == ENTRY_CREATE && isOnPackagePath(child) && Files.isDirectory(child))
+			{
+				watchCreated(child, changes);
+			}
+			else
+			{
+				collectClass(directory, fileName, changes);
+			}
+		}
+
+		if (key.reset() == false)
+		{
+			directories.remove(key);
+		}
+	}
+
+	private void collectClass(Path directory, String fileName, Changes changes)
+	{
+		if (fileName.endsWith(CLASS_SUFFIX))
+		{
+			String className = getClassName(directory, fileName);
+			if (className != null)
+			{
+				changes.classNames.add(className);
+			}
+		}
+	}
+
+	/**
+	 * @return name of the top level class of the class file, <code>null</code> if it is not a
+	 *         watched entity
+	 */
+	private String getClassName(Path directory, String fileName)
+	{
+		for (Path root : classesDirectories)
+		{
+			Path absoluteRoot = root.toAbsolutePath();
+			if (directory.startsWith(absoluteRoot) == false)
+			{
+				continue;
+			}
+
+			String packageName = absoluteRoot.relativize(directory).toString().replace(directory.getFileSystem()
+				.getSeparator(), ".");
+			String simpleName = fileName.substring(0, fileName.length() - CLASS_SUFFIX.length());
+			int nested = simpleName.indexOf('$');
+			if (nested >= 0)
+			{
+				simpleName = simpleName.substring(0, nested);
+			}
+			String className = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+			if (packageNames.contains(packageName) || classNames.contains(className))
+			{
+				return className;
+			}
+		}
+		return null;
+	}
+
+	private void handle(Changes changes)
+	{
+		long start = System.nanoTime();
+		try
+		{
+			if (changes.overflow)
+			{
+				logger.info("Too many changes, generating all entities");
+				generator.reloadTemplates();
+				generateAll();
+				return;
+			}
+
+			boolean templatesChanged = changes.templateDirectories.isEmpty() == false;
+			if (templatesChanged)
+			{
+				repack(changes.templateDirectories);
+				generator.reloadTemplates();
+			}
+
+			Set<String> regenerated = updateEntities(changes.classNames);
+			if (templatesChanged)
+			{
+				for (EntityMetadata metadata : entities.values())
+				{
+					if (regenerated.contains(metadata.getClassName()) == false)
+					{
+						generator.createComponents(metadata, factoryCanonicalName);
+					}
+				}
+			}
+
+			if (templatesChanged || changes.classNames.isEmpty() == false)
+			{
+				mergeProperties();
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			// keep watching, the next change may fix it
+			logger.error("Generation failed", e);
+			return;
+		}
+		logger.info("Handled changes of {} classes and {} template directories in {} ms",
+			changes.classNames.size(), changes.templateDirectories.size(),
+			TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+
+	/**
+	 * Reads changed entities and regenerates them, entities whose class was deleted are removed.
+	 *
+	 * @return names of the regenerated entities
+	 */
+	private Set<String> updateEntities(Set<String> changedClassNames) throws IOException
+	{
+		Set<String> regenerated = new HashSet<String>();
+		if (changedClassNames.isEmpty())
+		{
+			return regenerated;
+		}
+
+		try (URLClassLoader loader = newClassLoader())
+		{
+			for (String className : changedClassNames)
+			{
+				Class<?> clazz = isEntityFile(className) ? loadClass(loader, className) : null;
+				if (clazz == null || ClassFinder.isEntity(clazz) == false)
+				{
+					if (entities.remove(className) != null)
+					{
+						generator.removeComponents(className);
+					}
+					continue;
+				}
+
+				EntityMetadata metadata = EntityMetadata.of(clazz);
+				entities.put(className, metadata);
+				generator.createComponents(metadata, factoryCanonicalName);
+				regenerated.add(className);
+			}
+		}
+		return regenerated;
+	}
+
+	/**
+	 * @return <code>true</code> if the class file exists and is annotated, when required
+	 */
+	private boolean isEntityFile(String className) throws IOException
+	{
+		String path = className.replace('.', '/') + CLASS_SUFFIX;
+		for (Path root : classesDirectories)
+		{
+			Path file = root.resolve(path);
+			if (Files.exists(file))
+			{
+				return scanner == null || scanner.isEntity(file);
+			}
+		}
+		return false;
+	}
+
+	private static void repack(Set<Path> templateDirectories) throws IOException
+	{
+		for (Path directory : templateDirectories)
+		{
+			if (Files.exists(directory.resolve(TemplateIndex.INDEX_NAME)))
+			{
+				TemplatePacker.pack(directory);
+			}
+		}
+	}
+
+	private void mergeProperties()
+	{
+		if (applicationName != null)
+		{
+			generator.createMergedProperties(applicationName);
+		}
+	}
+
+	private URLClassLoader newClassLoader() throws MalformedURLException
+	{
+		URL[] urls = new URL[classesDirectories.size()];
+		for (int i = 0; i < urls.length; i++)
+		{
+			urls[i] = classesDirectories.get(i).toUri().toURL();
+		}
+		return new URLClassLoader(urls, ReflectionUtil.class.getClassLoader());
+	}
+
+	private static Class<?> loadClass(ClassLoader loader, String className)
+	{
+		try
+		{
+			return Class.forName(className, false, loader);
+		}
+		catch (ClassNotFoundException | LinkageError e)
+		{
+			logger.warn("Unable to load {}: {}", className, e.toString());
+			return null;
+		}
+	}
+
+	/**
+	 * Changes collected until the directories are quiet.
+	 */
+	private static final class Changes
+	{
+		private final Set<String> classNames = new TreeSet<String>();
+		private final Set<Path> templateDirectories = new HashSet<Path>();
+		private boolean overflow;
+	}
+}
@@ -17,17 +17,19 @@
 package name.berries.wicket.reflection;
 
 import java.lang.reflect.Field;
-import java.util.HashMap;
-import java.util.Map;
-
-import javax.persistence.Column;
-import javax.persistence.Enumerated;
-import javax.persistence.ManyToOne;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import org.apache.wicket.util.lang.Args;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import name.berries.extensions.jfr.FlightRecorderSupport;
 import name.berries.wicket.reflection.annotations.FieldType;
+import name.berries.wicket.reflection.model.AnnotationInfo;
+import name.berries.wicket.reflection.model.ClassInfo;
+import name.berries.wicket.reflection.model.FieldInfo;
+import name.berries.wicket.reflection.model.ReflectionClassReader;
 
 /**
  * @author rozkovec
@@ -64,104 +66,169 @@ public enum JavaTypeEnum {
 
 	private static final Logger logger = LoggerFactory.getLogger(JavaTypeEnum.class);
 
+	private static final String ENUMERATED = "javax.persistence.Enumerated";
+	private static final String MANY_TO_ONE = "javax.persistence.ManyToOne";
+
+	/** resolution table, keyed by the binary name of the declared type of the field */
+	private static final ConcurrentMap<String, TypeMapping> TYPES = new ConcurrentHashMap<String, TypeMapping>();
+
+	static
+	{
+		register(java.lang.Object.class, Object);
+		register(java.lang.String.class, String);
+		register(java.util.Date.class, Date);
+		register(java.sql.Date.class, Date);
+		register(java.lang.Integer.class, Integer);
+		register(int.class, Integer);
+		register(java.math.BigDecimal.class, BigDecimal);
+		register(java.lang.Long.class, Long);
+		register(long.class, Long);
+		register(java.lang.Enum.class, Enum);
+		register(java.util.Set.class, Set);
+		register(java.util.List.class, List);
+		register(java.io.File.class, File);
+		register(org.apache.wicket.util.file.File.class, File);
+		register(java.lang.Boolean.class, Boolean);
+		register(boolean.class, Boolean);
+		register(java.lang.Double.class, Double);
+		register(double.class, Double);
+	}
+
+	/**
+	 * Registers java type used for fields of the given type. Wicket component is derived from the
+	 * java type.
+	 *
+	 * @param type
+	 *            declared type of the field
+	 * @param javaType
+	 */
+	public static void register(Class<?> type, JavaTypeEnum javaType)
+	{
+		register(type, javaType, null);
+	}
+
+	/**
+	 * Registers java type and wicket component used for fields of the given type, replacing any
+	 * previous registration of the type.
+	 *
+	 * @param type
+	 *            declared type of the field
+	 * @param javaType
+	 * @param htmlType
+	 *            wicket component, if <code>null</code> it is derived from the java type
+	 */
+	public static void register(Class<?> type, JavaTypeEnum javaType, WicketTypeEnum htmlType)
+	{
+		Args.notNull(type, "type");
+		Args.notNull(javaType, "javaType");
+		TYPES.put(type.getName(), new TypeMapping(javaType, htmlType));
+	}
+
 	/**
 	 * @param field
 	 * @return this
-	 * @throws IllegalAccessException
 	 */
 	public static FieldWrapper getFieldWrapper(Field field)
 	{
-		java.lang.String fieldName = field.getType().getSimpleName();
+		ClassInfo declaringClass = ReflectionClassReader.read(field.getDeclaringClass());
+		TypeMapping mapping = resolve(declaringClass, declaringClass.getField(field.getName()));
+		return new FieldWrapper(field, mapping.javaType, mapping.htmlType);
+	}
 
+	/**
+	 * @param declaringClass
+	 * @param field
+	 * @return wrapper of the field
+	 */
+	public static FieldWrapper getFieldWrapper(ClassInfo declaringClass, FieldInfo field)
+	{
+		TypeMapping mapping = resolve(declaringClass, field);
+		return new FieldWrapper(declaringClass, field, mapping.javaType, mapping.htmlType);
+	}
+
+	private static TypeMapping resolve(ClassInfo declaringClass, FieldInfo field)
+	{
 		JavaTypeEnum javaType = null;
 		WicketTypeEnum htmlType = null;
 
-		FieldType typeAnnotation;
-		if ((typeAnnotation = field.getAnnotation(FieldType.class)) != null)
+		AnnotationInfo typeAnnotation;
+		if ((typeAnnotation = field.getAnnotation(FieldType.class.getName())) != null)
 		{
-			javaType = typeAnnotation.value();
-			htmlType = typeAnnotation.htmlType();
+			javaType = valueOf(typeAnnotation.getString("value", Unknown.name()));
+			htmlType = WicketTypeEnum.valueOf(typeAnnotation.getString("htmlType", WicketTypeEnum.Unknown.name()));
 		}
 
-		try
+		if (javaType == null || Unknown.equals(javaType))
 		{
-			if (javaType == null || Unknown.equals(javaType))
+			TypeMapping mapping = TYPES.get(field.getTypeName());
+			if (mapping != null)
 			{
-				javaType = JavaTypeEnum.valueOf(fieldName);
+				javaType = mapping.javaType;
+				if (isUnresolved(htmlType))
+				{
+					htmlType = mapping.htmlType;
+				}
 
 				// override to text
-				Column columnAnno;
-				if (String.equals(javaType) &&
-					(columnAnno = field.getAnnotation(Column.class)) != null)
+				AnnotationInfo columnAnno;
+				if (String.equals(javaType) && (columnAnno = field.getAnnotation(FieldWrapper.COLUMN)) != null)
 				{
-					if (columnAnno.length() > 255)
+					if (columnAnno.getInt("length", 255) > 255)
 					{
 						javaType = Text;
 					}
 				}
 			}
-			if (htmlType == null || WicketTypeEnum.Unknown.equals(htmlType))
-			{
-				htmlType = WicketTypeEnum.get(javaType);
-			}
-			return new FieldWrapper(field, javaType, htmlType);
-
-		}
-		catch (IllegalArgumentException e)
-		{
-			// last resort - if all previous checks failed
-
-			javaType = getElementsMap().get(fieldName);
-
-			if (javaType == null)
+			else
 			{
-				// if field has Enumerated annotation, we use this information
-				Enumerated enumAnno;
-				if ((enumAnno = field.getAnnotation(Enumerated.class)) != null)
+				// last resort - if the type is not registered
+				javaType = getAnnotatedType(declaringClass, field);
+				if (FlightRecorderSupport.isAvailable())
 				{
-					javaType = Enum;
-				}
-				else
-				{
-					ManyToOne manyToOneAnnotation;
-					if ((manyToOneAnnotation = field.getAnnotation(ManyToOne.class)) != null)
-					{
-						javaType = Object;
-					}
-					else
-					{
-						javaType = Unknown;
-						logger.warn("Unable to locate java type for field " + field);
-					}
+					TypeFallbackEvent.emit(declaringClass, field, javaType);
 				}
 			}
+		}
 
+		if (isUnresolved(htmlType))
+		{
+			htmlType = WicketTypeEnum.get(javaType);
+		}
+		return new TypeMapping(javaType, htmlType);
+	}
 
-			if (htmlType == null)
-			{
-				htmlType = WicketTypeEnum.get(javaType);
-				if (htmlType == null)
-				{
-					htmlType = WicketTypeEnum.Unknown;
-				}
-				logger.warn("Unable to create HTML component for java type " + javaType);
-			}
-			return new FieldWrapper(field, javaType, htmlType);
+	private static JavaTypeEnum getAnnotatedType(ClassInfo declaringClass, FieldInfo field)
+	{
+		// if field has Enumerated annotation, we use this information
+		if (field.getAnnotation(ENUMERATED) != null)
+		{
+			return Enum;
+		}
+		if (field.getAnnotation(MANY_TO_ONE) != null)
+		{
+			return Object;
 		}
+		logger.warn("Unable to locate java type for field {}.{}", declaringClass.getName(), field.getName());
+		return Unknown;
+	}
+
+	private static boolean isUnresolved(WicketTypeEnum htmlType)
+	{
+		return htmlType == null || WicketTypeEnum.Unknown.equals(htmlType);
 	}
 
 	/**
-	 * last resort attempt
-	 *
-	 * @return field
+	 * Registered java type and optional wicket component
 	 */
-	private static Map<String, JavaTypeEnum> getElementsMap()
+	private static final class TypeMapping
 	{
-		HashMap<String, JavaTypeEnum> map = new HashMap<String, JavaTypeEnum>();
-		map.put("double", Double);
-		map.put("boolean", Boolean);
-		map.put("int", Integer);
-		map.put("long", Long);
-		return map;
+		private final JavaTypeEnum javaType;
+		private final WicketTypeEnum htmlType;
+
+		private TypeMapping(JavaTypeEnum javaType, WicketTypeEnum htmlType)
+		{
+			this.javaType = javaType;
+			this.htmlType = htmlType;
+		}
 	}
-}
\ No newline at end of file
+}
@@ -17,31 +17,53 @@
 package name.berries.wicket.reflection;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.ListResourceBundle;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.wicket.Application;
+import org.apache.wicket.resource.loader.BundleStringResourceLoader;
 import org.apache.wicket.util.file.File;
+import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.string.Strings;
 import org.apache.wicket.util.template.PackageTextTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import name.berries.extensions.jfr.FlightRecorderSupport;
+import name.berries.extensions.velocity.TemplateIndex;
 import name.berries.extensions.velocity.VelocityUtil;
 import name.berries.wicket.reflection.annotations.ClassResourceNamespace;
-import name.berries.wicket.reflection.annotations.IncludeField;
-import name.berries.wicket.reflection.annotations.Order;
-import name.berries.wicket.reflection.annotations.SkipField;
+import name.berries.wicket.reflection.model.AnnotationInfo;
+import name.berries.wicket.reflection.model.ClassInfo;
+import name.berries.wicket.reflection.model.MetadataProvider;
+import name.berries.wicket.reflection.model.ReflectionMetadataProvider;
+import name.berries.wicket.reflection.output.ContentWriter;
+import name.berries.wicket.reflection.output.FileSystemOutputSink;
+import name.berries.wicket.reflection.output.OutputSink;
 
 
 /**
@@ -72,23 +94,69 @@ public class ReflectionUtil
 
 	private static final String FORMAT_FACTORY_JAVA = "%sFactory.java";
 
+	/** all files generated for one entity */
+	private static final List<String> ENTITY_FILE_FORMATS = Arrays.asList(FORMAT_EDIT_PANEL_HTML,
+		FORMAT_EDIT_PANEL_JAVA, FORMAT_EDIT_PANEL_PROPERTIES, FORMAT_LIST_PANEL_HTML, FORMAT_LIST_PANEL_JAVA,
+		FORMAT_LIST_PANEL_ACTIONS_HTML, FORMAT_LIST_PANEL_ACTIONS_JAVA, FORMAT_VIEW_PANEL_HTML,
+		FORMAT_VIEW_PANEL_JAVA, FORMAT_MODEL_JAVA, FORMAT_FACTORY_JAVA);
+
+	private static final String TEMPLATE_EDIT_PANEL_HTML = "EditPanel.html.tmpl";
+	private static final String TEMPLATE_EDIT_PANEL_JAVA = "EditPanel.java.tmpl";
+	private static final String TEMPLATE_LIST_PANEL_HTML = "ListPanel.html.tmpl";
+	private static final String TEMPLATE_LIST_PANEL_JAVA = "ListPanel.java.tmpl";
+	private static final String TEMPLATE_LIST_PANEL_ACTIONS_HTML = "ListPanelActions.html.tmpl";
+	private static final String TEMPLATE_LIST_PANEL_ACTIONS_JAVA = "ListPanelActions.java.tmpl";
+	private static final String TEMPLATE_VIEW_PANEL_HTML = "ViewPanel.html.tmpl";
+	private static final String TEMPLATE_VIEW_PANEL_JAVA = "ViewPanel.java.tmpl";
+	private static final String TEMPLATE_MODEL_JAVA = "Model.java.tmpl";
+	private static final String TEMPLATE_FACTORY_JAVA = "Factory.java.tmpl";
+
+	/** files waiting in the write queue per writer */
+	private static final int WRITE_QUEUE_CAPACITY = 16;
+
+	private static final List<String> TEMPLATES = Arrays.asList(TEMPLATE_EDIT_PANEL_HTML, TEMPLATE_EDIT_PANEL_JAVA,
+		TEMPLATE_LIST_PANEL_HTML, TEMPLATE_LIST_PANEL_JAVA, TEMPLATE_LIST_PANEL_ACTIONS_HTML,
+		TEMPLATE_LIST_PANEL_ACTIONS_JAVA, TEMPLATE_VIEW_PANEL_HTML, TEMPLATE_VIEW_PANEL_JAVA, TEMPLATE_MODEL_JAVA,
+		TEMPLATE_FACTORY_JAVA);
+
 	private String outputDirectoryPath;
 
 	private Class<?> templateReferenceClass = ReflectionUtil.class;
 	private String templatePath = "templates/bootstrap/horizontal";
 
-	private ArrayList<FieldWrapper> filteredFields;
+	/** package of the generated components, each entity has its own sub package */
+	private final String outputPackage;
+
+	/** properties of the generated entities by class name, in the order of first generation */
+	private final Map<String, String> mergedProperties = new LinkedHashMap<String, String>();
+
+	private VelocityUtil velocity = new VelocityUtil();
 
-	private Class<?> domainClass;
-	private String classNamespace;
-	private String classSimpleName;
+	private Executor executor;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	private boolean parallelArtifacts;
 
-	private Class<?> outputReferenceClass;
+	private boolean resourceBundle;
 
-	private String mergedProperties = "";
+	private int writerThreads;
+	private Executor writerExecutor;
+	private volatile WritePipeline pipeline;
 
+	private boolean incremental;
+	private boolean removeStale;
+	private GenerationManifest manifest;
+	private String templateFingerprint;
+	private boolean templatesLoaded;
 
-	private Class<?> factoryClazz;
+	private volatile GenerationStatistics statistics = new GenerationStatistics();
+
+	/** only for the deprecated methods reading the entity generated last */
+	private volatile EntityMetadata lastMetadata;
+	private final List<GenerationListener> listeners = new CopyOnWriteArrayList<GenerationListener>();
+
+	private OutputSink outputSink;
+	private OutputSink directorySink;
+	private boolean commonPropertiesWritten;
 
 	/**
 	 * Construct.
@@ -113,7 +181,25 @@ public class ReflectionUtil
 	{
 		super();
 		this.outputDirectoryPath = outputDirectoryPath;
-		this.outputReferenceClass = outputReferenceClass;
+		outputPackage = outputReferenceClass.getPackage().getName();
+		templateReferenceClass = template.getReflectionClass();
+		templatePath = template.getTemplatePath();
+	}
+
+	/**
+	 * Construct generator writing into the given sink instead of the output directory, e.g. when
+	 * running in an annotation processor.
+	 *
+	 * @param outputSink
+	 * @param outputPackage
+	 *            package of the generated components, each entity has its own sub package
+	 * @param template
+	 */
+	public ReflectionUtil(OutputSink outputSink, String outputPackage, ReflectionTemplate template)
+	{
+		super();
+		this.outputSink = Args.notNull(outputSink, "outputSink");
+		this.outputPackage = Args.notNull(outputPackage, "outputPackage");
 		templateReferenceClass = template.getReflectionClass();
 		templatePath = template.getTemplatePath();
 	}
@@ -131,7 +217,7 @@ public class ReflectionUtil
 	{
 		super();
 		this.outputDirectoryPath = outputDirectoryPath;
-		this.outputReferenceClass = outputReferenceClass;
+		outputPackage = outputReferenceClass.getPackage().getName();
 		this.templateReferenceClass = templateReferenceClass;
 		this.templatePath = templatePath;
 	}
@@ -142,9 +228,62 @@ public class ReflectionUtil
 	 * @param outputDirectoryPath
 	 *            outputDirectoryPath
 	 */
-	public void setOutputDirectoryPath(String outputDirectoryPath)
+	public synchronized void setOutputDirectoryPath(String outputDirectoryPath)
 	{
 		this.outputDirectoryPath = outputDirectoryPath;
+		directorySink = null;
+		resetOutput();
+	}
+
+	/**
+	 * Sets where all generated files will be written, instead of the output directory. The sink is
+	 * not closed by the generator.
+	 *
+	 * @param outputSink
+	 *            sink, <code>null</code> to write into the output directory
+	 * @throws IllegalStateException
+	 *             if the generator is incremental and the output sink is not
+	 *             {@link OutputSink#isRewritable() rewritable}
+	 */
+	public synchronized void setOutputSink(OutputSink outputSink)
+	{
+		checkRewritable(incremental, outputSink);
+		this.outputSink = outputSink;
+		resetOutput();
+	}
+
+	private static void checkRewritable(boolean incremental, OutputSink outputSink)
+	{
+		if (incremental && outputSink != null && outputSink.isRewritable() == false)
+		{
+			throw new IllegalStateException("Incremental generation needs a rewritable output sink.");
+		}
+	}
+
+	/**
+	 * @return sink all generated files are written to
+	 */
+	public synchronized OutputSink getOutputSink()
+	{
+		if (outputSink != null)
+		{
+			return outputSink;
+		}
+		if (directorySink == null)
+		{
+			if (Strings.isEmpty(outputDirectoryPath))
+			{
+				throw new IllegalStateException("Path cannot be null.");
+			}
+			directorySink = new FileSystemOutputSink(Paths.get(getFormattedPath(true, outputDirectoryPath)));
+		}
+		return directorySink;
+	}
+
+	private void resetOutput()
+	{
+		manifest = null;
+		commonPropertiesWritten = false;
 	}
 
 
@@ -158,10 +297,59 @@ public class ReflectionUtil
 	 * @param templatePath
 	 *            templatePath
 	 */
-	public void setTemplateReferenceClass(Class<?> templateReferenceClass, String templatePath)
+	public synchronized void setTemplateReferenceClass(Class<?> templateReferenceClass, String templatePath)
 	{
 		this.templateReferenceClass = templateReferenceClass;
 		this.templatePath = templatePath;
+		templateFingerprint = null;
+		templatesLoaded = false;
+	}
+
+	/**
+	 * Sets velocity used to render templates. Each generator has its own by default, share one
+	 * instance to share parsed templates between generators.
+	 *
+	 * @param velocity
+	 *            velocity
+	 */
+	public synchronized void setVelocity(VelocityUtil velocity)
+	{
+		this.velocity = velocity;
+		templatesLoaded = false;
+	}
+
+	/**
+	 * Reads and parses all templates of the template set at once, so that the first generated
+	 * entity does not pay for it and the entities generated concurrently do not parse the same
+	 * templates. Called at the beginning of every run, when the templates were not loaded yet. When
+	 * the template directory contains {@link TemplateIndex}, the whole set is read from the index.
+	 *
+	 * @throws IllegalStateException
+	 *             when a template is missing or invalid
+	 */
+	public synchronized void preloadTemplates()
+	{
+		if (templatesLoaded == false)
+		{
+			for (String template : TEMPLATES)
+			{
+				velocity.getTemplate(templateReferenceClass, templatePath + template);
+			}
+			templatesLoaded = true;
+		}
+	}
+
+	/**
+	 * Drops parsed templates, so that changed templates are read again by the next generation.
+	 * Velocity is replaced with a {@link VelocityUtil#newInstance() new instance} of the same
+	 * configuration, which is not shared with other generators anymore. The incremental mode
+	 * regenerates all entities of changed templates.
+	 */
+	public synchronized void reloadTemplates()
+	{
+		velocity = velocity.newInstance();
+		templateFingerprint = null;
+		templatesLoaded = false;
 	}
 
 	/**
@@ -180,39 +368,634 @@ public class ReflectionUtil
 	 */
 	public void createComponents(Class<?> clazz, Class<?> factoryClazz)
 	{
-		domainClass = clazz;
-		this.factoryClazz = factoryClazz;
-		classSimpleName = clazz.getSimpleName();
-		classNamespace = getClassNamespace();
+		createComponents(newEntity(clazz, factoryClazz));
+	}
+
+	/**
+	 * Creates components of an entity whose field model was read without reflection, e.g. from
+	 * the compiler's element model.
+	 *
+	 * @param metadata
+	 * @param factoryClassName
+	 *            canonical name of the factory class, may be <code>null</code>
+	 */
+	public void createComponents(EntityMetadata metadata, String factoryClassName)
+	{
+		createComponents(new EntityContext(metadata, factoryClassName));
+	}
+
+	private void createComponents(EntityContext entity)
+	{
+		statistics = new GenerationStatistics();
+		preloadTemplates();
+
+		try
+		{
+			startWriting();
+			createCommonProperties();
+
+			appendMergedProperties(entity.getClassName(), createEntityComponents(entity));
+		}
+		finally
+		{
+			finishWriting();
+		}
+
+		storeManifest();
+	}
+
+	/**
+	 * Sets executor used by {@link #generateAll(Collection)}. When not set, a {@link ForkJoinPool}
+	 * with {@link #setParallelism(int)} threads is created for each batch. On newer JVMs a virtual
+	 * thread per task executor can be used as well.
+	 *
+	 * @param executor
+	 *            executor
+	 */
+	public void setExecutor(Executor executor)
+	{
+		this.executor = executor;
+	}
+
+	/**
+	 * Sets number of entities generated concurrently by {@link #generateAll(Collection)}, when no
+	 * executor is set.
+	 *
+	 * @param parallelism
+	 *            parallelism
+	 */
+	public void setParallelism(int parallelism)
+	{
+		Args.isTrue(parallelism > 0, "parallelism must be positive");
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * When <code>true</code>, the components of one entity (edit, list, view, model and factory) are
+	 * rendered concurrently. They are independent of each other once the field model is read, so
+	 * generating a single wide entity scales with the number of cores. Default is
+	 * <code>false</code>.
+	 *
+	 * @param parallelArtifacts
+	 */
+	public void setParallelArtifacts(boolean parallelArtifacts)
+	{
+		this.parallelArtifacts = parallelArtifacts;
+	}
+
+	/**
+	 * When <code>true</code>, fingerprint of each entity is stored in a manifest in the output
+	 * directory and entities whose fingerprint did not change since the last run are not generated
+	 * again. The fingerprint covers the field model, field annotations, factory class and content of
+	 * the templates. Templates are hashed only once per generator, modifications of templates made
+	 * while the generator is in use are not noticed. Default is <code>false</code>.
+	 * <p>
+	 * The manifest is rewritten after each generation, so the output sink must be
+	 * {@link OutputSink#isRewritable() rewritable}.
+	 *
+	 * @param incremental
+	 * @throws IllegalStateException
+	 *             if the generator is incremental and the output sink is not
+	 *             {@link OutputSink#isRewritable() rewritable}
+	 */
+	public synchronized void setIncremental(boolean incremental)
+	{
+		checkRewritable(incremental, outputSink);
+		this.incremental = incremental;
+	}
+
+	/**
+	 * When <code>true</code>, files of stale entities, recorded in the manifest of the
+	 * {@link #setIncremental(boolean) incremental} mode but whose class does not exist anymore, are
+	 * deleted by {@link #generateAll(Collection)}. Otherwise stale entities are only reported.
+	 * Existence is checked by the class loaders of the batch or by its {@link MetadataProvider}, so
+	 * entities of other batches generated into the same directory must be visible to them. Default
+	 * is <code>false</code>.
+	 *
+	 * @param removeStale
+	 */
+	public void setRemoveStale(boolean removeStale)
+	{
+		this.removeStale = removeStale;
+	}
+
+	/**
+	 * When <code>true</code>, {@link #createMergedProperties()} generates also a
+	 * {@link ListResourceBundle} with all labels, which can be registered with
+	 * {@link BundleStringResourceLoader}, so that labels are resolved without parsing properties at
+	 * runtime. Default is <code>false</code>.
+	 *
+	 * @param resourceBundle
+	 */
+	public void setResourceBundle(boolean resourceBundle)
+	{
+		this.resourceBundle = resourceBundle;
+	}
+
+	/**
+	 * Sets number of writers. When greater than zero, rendering and writing run as two stages:
+	 * rendered files are queued and written by the writers, so that I/O latency is not added to
+	 * rendering of every file. The queue is bounded, renderers wait when writers can not keep up.
+	 * All files are written before {@link #createComponents(Class, Class)} or
+	 * {@link #generateAll(Collection)} returns. Default is <code>0</code>, files are written by the
+	 * renderers.
+	 *
+	 * @param writerThreads
+	 */
+	public void setWriterThreads(int writerThreads)
+	{
+		Args.isTrue(writerThreads >= 0, "writerThreads must not be negative");
+		this.writerThreads = writerThreads;
+	}
+
+	/**
+	 * Sets executor running the writers, e.g. a virtual thread per task executor on newer JVMs.
+	 * It must not be the executor set by {@link #setExecutor(Executor)}. When not set, a pool of
+	 * {@link #setWriterThreads(int)} daemon threads is created for each run. The executor must run
+	 * all the writers at once, the run fails with {@link RejectedExecutionException} when a writer is
+	 * rejected.
+	 *
+	 * @param writerExecutor
+	 */
+	public void setWriterExecutor(Executor writerExecutor)
+	{
+		this.writerExecutor = writerExecutor;
+	}
+
+	/**
+	 * Adds listener notified about every phase of the generation, e.g. {@link GenerationReport}.
+	 *
+	 * @param listener
+	 */
+	public void addListener(GenerationListener listener)
+	{
+		Args.notNull(listener, "listener");
+		listeners.add(listener);
+	}
+
+	/**
+	 * @param listener
+	 */
+	public void removeListener(GenerationListener listener)
+	{
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Statistics are started anew by each {@link #generateAll(Collection)} and
+	 * {@link #createComponents(Class)}, files written by {@link #createMergedProperties()} are added
+	 * to the statistics of the preceding run.
+	 *
+	 * @return counts of files written, skipped and removed by the last run
+	 */
+	public GenerationStatistics getStatistics()
+	{
+		return statistics;
+	}
+
+	/**
+	 * Generates components of all given classes concurrently. Each entity is generated in its own
+	 * context, the properties of the entities are appended to merged properties in the order of
+	 * the given collection, regardless of the order in which the entities were finished.
+	 * <p>
+	 * Generator configuration must not be changed while the batch is running. In
+	 * {@link #setIncremental(boolean) incremental} mode, entities recorded in the manifest whose class
+	 * can not be loaded by the class loaders of the given classes anymore are reported, or deleted
+	 * when {@link #setRemoveStale(boolean)} is set.
+	 *
+	 * @param classes
+	 */
+	public void generateAll(Collection<Class<?>> classes)
+	{
+		generateAll(classes, null);
+	}
+
+	/**
+	 * @param classes
+	 * @param factoryClazz
+	 * @see #generateAll(Collection)
+	 */
+	public void generateAll(Collection<Class<?>> classes, final Class<?> factoryClazz)
+	{
+		final List<Class<?>> entities = new ArrayList<Class<?>>(classes);
+		List<String> classNames = new ArrayList<String>(entities.size());
+		final Set<ClassLoader> loaders = new LinkedHashSet<ClassLoader>();
+		for (Class<?> clazz : entities)
+		{
+			classNames.add(clazz.getName());
+			if (clazz.getClassLoader() != null)
+			{
+				loaders.add(clazz.getClassLoader());
+			}
+		}
+
+		// stale entities are looked up where the batch was loaded from, never in an unrelated loader
+		generateAll(classNames, i -> newEntity(entities.get(i), factoryClazz),
+			className -> loaders.isEmpty() || exists(className, loaders));
+	}
+
+	private static boolean exists(String className, Set<ClassLoader> loaders)
+	{
+		for (ClassLoader loader : loaders)
+		{
+			if (new ReflectionMetadataProvider(loader).exists(className))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Generates components of classes read by the provider, e.g. from class files, so the entities
+	 * and their dependencies do not have to be on the classpath.
+	 *
+	 * @param provider
+	 *            reads the entities, tells which of them do not exist anymore
+	 * @param classNames
+	 *            binary names of the entities
+	 * @param factoryClassName
+	 *            canonical name of the factory class, may be <code>null</code>
+	 * @see #generateAll(Collection)
+	 */
+	public void generateAll(final MetadataProvider provider, final List<String> classNames,
+		final String factoryClassName)
+	{
+		Args.notNull(provider, "provider");
+		generateAll(classNames, i -> newEntity(provider, classNames.get(i), factoryClassName), provider::exists);
+	}
+
+	/**
+	 * @param exists
+	 *            tells whether a class of an entity in the manifest still exists
+	 */
+	private void generateAll(List<String> classNames, final IntFunction<EntityContext> entities,
+		Predicate<String> exists)
+	{
+		statistics = new GenerationStatistics();
+		preloadTemplates();
+
+		Executor batchExecutor = executor;
+		ForkJoinPool pool = null;
+		if (batchExecutor == null)
+		{
+			batchExecutor = pool = new ForkJoinPool(parallelism);
+		}
+
+		try
+		{
+			startWriting();
+			createCommonProperties();
+
+			List<CompletableFuture<String>> results = new ArrayList<CompletableFuture<String>>(classNames.size());
+			for (int i = 0; i < classNames.size(); i++)
+			{
+				final int index = i;
+				results.add(CompletableFuture.supplyAsync(
+					() -> createEntityComponents(entities.apply(index)), batchExecutor));
+			}
+
+			for (int i = 0; i < classNames.size(); i++)
+			{
+				appendMergedProperties(classNames.get(i), join(results.get(i)));
+			}
+
+			if (incremental)
+			{
+				removeStaleEntities(classNames, exists);
+			}
+		}
+		finally
+		{
+			try
+			{
+				finishWriting();
+			}
+			finally
+			{
+				if (pool != null)
+				{
+					pool.shutdown();
+				}
+			}
+		}
+
+		storeManifest();
+		logger.info("Generated {} entities: {}", classNames.size(), statistics);
+	}
 
+	/**
+	 * Starts writers of the run, when enabled.
+	 */
+	private synchronized void startWriting()
+	{
+		if (writerThreads > 0)
+		{
+			pipeline = new WritePipeline(writerExecutor, writerThreads, writerThreads * WRITE_QUEUE_CAPACITY);
+		}
+	}
 
-		// already was something generated
-		if (filteredFields != null)
+	/**
+	 * Waits until everything rendered in the run is written.
+	 */
+	private void finishWriting()
+	{
+		WritePipeline finishing;
+		synchronized (this)
+		{
+			finishing = pipeline;
+			pipeline = null;
+		}
+		if (finishing != null)
 		{
-			filteredFields.clear();
-			filteredFields = null;
+			finishing.close();
 		}
+	}
 
-		createWicketComponent(FORMAT_COMMON_PROPERTIES, false);
-		File properties = getComponentFile(FORMAT_COMMON_PROPERTIES, false);
+	private static <T> T join(CompletableFuture<T> future)
+	{
 		try
 		{
-			properties.write(getCommonPropertiesString());
+			return future.join();
 		}
-		catch (IOException e)
+		catch (CompletionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException)e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Creates all components of one entity.
+	 *
+	 * @param entity
+	 * @return properties of the entity to be merged
+	 */
+	private String createEntityComponents(EntityContext entity)
+	{
+		EntityGenerationEvent event = FlightRecorderSupport.isAvailable() ? EntityGenerationEvent.start() : null;
+		long start = System.nanoTime();
+		lastMetadata = entity.getMetadata();
+		String fingerprint = null;
+		if (incremental)
+		{
+			fingerprint = getFingerprint(entity);
+			if (getManifest().isUpToDate(entity.getClassName(), fingerprint) && isGenerated(entity))
+			{
+				logger.info("Skipping unchanged entity {}", entity.getClassName());
+				for (String format : ENTITY_FILE_FORMATS)
+				{
+					// not rendered at all, so neither length nor time
+					fireWrite(getComponentPath(entity, format), false, 0, 0, null);
+				}
+				String properties = getPropertiesString(entity.getMetadata());
+				fireEntity(entity, false, start, event);
+				return properties;
+			}
+		}
+
+		String properties = parallelArtifacts ? createEntityComponentsConcurrently(entity)
+			: createEntityComponentsSequentially(entity);
+
+		if (fingerprint != null)
+		{
+			getManifest().put(entity.getClassName(), fingerprint);
+		}
+		fireEntity(entity, true, start, event);
+		return properties;
+	}
+
+	private void fireEntity(EntityContext entity, boolean generated, long start, EntityGenerationEvent event)
+	{
+		long nanos = System.nanoTime() - start;
+		if (event != null)
+		{
+			event.commit(entity.getClassName(), generated);
+		}
+		for (GenerationListener listener : listeners)
+		{
+			listener.onEntity(entity.getClassName(), generated, nanos);
+		}
+	}
+
+	/**
+	 * Reads field model of the entity.
+	 *
+	 * @param clazz
+	 * @param factoryClazz
+	 * @return context of the entity
+	 */
+	private EntityContext newEntity(Class<?> clazz, Class<?> factoryClazz)
+	{
+		long start = System.nanoTime();
+		EntityMetadata metadata = EntityMetadata.of(clazz);
+		return newEntity(metadata, factoryClazz != null ? factoryClazz.getCanonicalName() : null, start);
+	}
+
+	private EntityContext newEntity(MetadataProvider provider, String className, String factoryClassName)
+	{
+		long start = System.nanoTime();
+		EntityMetadata metadata = EntityMetadata.of(provider.read(className));
+		return newEntity(metadata, factoryClassName, start);
+	}
+
+	private EntityContext newEntity(EntityMetadata metadata, String factoryClassName, long start)
+	{
+		long nanos = System.nanoTime() - start;
+		for (GenerationListener listener : listeners)
+		{
+			listener.onMetadata(metadata.getClassName(), metadata.getPropertiesFields().size(), nanos);
+		}
+		return new EntityContext(metadata, factoryClassName);
+	}
+
+	private String createEntityComponentsSequentially(EntityContext entity)
+	{
+		String properties = createEditComponent(entity);
+
+		createListComponent(entity);
+
+		createViewComponent(entity);
+
+		createModelComponent(entity);
+
+		createFactoryComponent(entity);
+
+		return properties;
+	}
+
+	/**
+	 * Renders the components in the common pool, the edit component is rendered by the calling
+	 * thread. Returns when all of them are written. The common pool is used even when batch
+	 * executor is set, so that the nested tasks can not starve a bounded batch executor.
+	 *
+	 * @param entity
+	 * @return properties of the entity to be merged
+	 */
+	private String createEntityComponentsConcurrently(final EntityContext entity)
+	{
+		CompletableFuture<Void> artifacts = CompletableFuture.allOf(
+			CompletableFuture.runAsync(() -> createListComponent(entity)),
+			CompletableFuture.runAsync(() -> createViewComponent(entity)),
+			CompletableFuture.runAsync(() -> createModelComponent(entity)),
+			CompletableFuture.runAsync(() -> createFactoryComponent(entity)));
+
+		String properties;
+		try
+		{
+			properties = createEditComponent(entity);
+		}
+		catch (RuntimeException e)
+		{
+			// do not return while the other components are still being written
+			artifacts.handle((result, failure) -> null).join();
+			throw e;
+		}
+		join(artifacts);
+		return properties;
+	}
+
+	private String getFingerprint(EntityContext entity)
+	{
+		return GenerationManifest.entityFingerprint(entity.getMetadata(), entity.getFactoryClassName(), outputPackage,
+			getTemplateFingerprint());
+	}
+
+	private synchronized String getTemplateFingerprint()
+	{
+		if (templateFingerprint == null)
+		{
+			templateFingerprint = GenerationManifest.templateFingerprint(templateReferenceClass, templatePath,
+				TEMPLATES);
+		}
+		return templateFingerprint;
+	}
+
+	private synchronized GenerationManifest getManifest()
+	{
+		if (manifest == null)
+		{
+			manifest = GenerationManifest.load(getOutputSink());
+		}
+		return manifest;
+	}
+
+	private void storeManifest()
+	{
+		if (incremental)
+		{
+			getManifest().store(getOutputSink());
+		}
+	}
+
+	/**
+	 * Reports entities that were generated before, but whose classes were removed since. Their
+	 * files are deleted only when {@link #setRemoveStale(boolean)} is set.
+	 *
+	 * @param classNames
+	 *            entities of the current batch
+	 * @param exists
+	 */
+	private void removeStaleEntities(Collection<String> classNames, Predicate<String> exists)
+	{
+		Set<String> current = new HashSet<String>(classNames);
+
+		GenerationManifest manifest = getManifest();
+		for (String className : manifest.getClassNames())
+		{
+			if (current.contains(className) || exists.test(className))
+			{
+				continue;
+			}
+			statistics.entityStale();
+			if (removeStale)
+			{
+				removeEntity(className);
+			}
+			else
+			{
+				logger.warn("Class of generated entity {} does not exist anymore, its components were kept",
+					className);
+			}
+		}
+	}
+
+	/**
+	 * Deletes generated files of the entity, e.g. when its class was deleted. Its properties are
+	 * not merged anymore.
+	 *
+	 * @param className
+	 *            name of the entity class
+	 */
+	public void removeComponents(String className)
+	{
+		removeEntity(className);
+		storeManifest();
+	}
+
+	private void removeEntity(String className)
+	{
+		String simpleName = className.substring(Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1);
+		for (String format : ENTITY_FILE_FORMATS)
+		{
+			String path = getComponentPath(simpleName, format);
+			try
+			{
+				if (getOutputSink().delete(path))
+				{
+					logger.info("Removed component on path {}", path);
+					statistics.fileRemoved();
+				}
+			}
+			catch (IOException e)
+			{
+				throw new RuntimeException(e);
+			}
+		}
+		if (incremental)
+		{
+			getManifest().remove(className);
+		}
+		synchronized (this)
+		{
+			mergedProperties.remove(className);
+		}
+	}
+
+	/**
+	 * @param entity
+	 * @return <code>true</code> if all files of the entity exist
+	 */
+	private boolean isGenerated(EntityContext entity)
+	{
+		for (String format : ENTITY_FILE_FORMATS)
+		{
+			if (getOutputSink().exists(getComponentPath(entity, format)) == false)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Properties of a regenerated entity replace the previous ones, keeping their position.
+	 */
+	private synchronized void appendMergedProperties(String className, String properties)
+	{
+		mergedProperties.put(className, properties);
+	}
+
+	private synchronized void createCommonProperties()
+	{
+		if (commonPropertiesWritten == false)
 		{
-			throw new RuntimeException(e);
+			writeProperties(FORMAT_COMMON_PROPERTIES, getCommonPropertiesString());
+			commonPropertiesWritten = true;
 		}
-
-		createEditComponent();
-
-		createListComponent();
-
-		createViewComponent();
-
-		createModelComponent();
-
-		createFactoryComponent();
 	}
 
 	/*
@@ -223,87 +1006,78 @@ public class ReflectionUtil
 	/**
 	 * @param outputDirectoryPath
 	 */
-	private void createListComponent()
+	private void createListComponent(EntityContext entity)
 	{
-		createWicketComponent(FORMAT_LIST_PANEL_JAVA);
-		createWicketComponent(FORMAT_LIST_PANEL_HTML);
-		createWicketComponent(FORMAT_LIST_PANEL_ACTIONS_JAVA);
-		createWicketComponent(FORMAT_LIST_PANEL_ACTIONS_HTML);
-
-		File java = getComponentFile(FORMAT_LIST_PANEL_JAVA);
-		File html = getComponentFile(FORMAT_LIST_PANEL_HTML);
-		File javaActions = getComponentFile(FORMAT_LIST_PANEL_ACTIONS_JAVA);
-		File htmlActions = getComponentFile(FORMAT_LIST_PANEL_ACTIONS_HTML);
-
-		try
-		{
-			java.write(getJavaListClass());
-			html.write(getHtmlListFile());
+		writeJavaListClass(entity, getComponentPath(entity, FORMAT_LIST_PANEL_JAVA));
+		writeHtmlListFile(entity, getComponentPath(entity, FORMAT_LIST_PANEL_HTML));
 
-			javaActions.write(getJavaListActionsClass());
-			htmlActions.write(getHtmlListActionsFile());
-		}
-		catch (IOException e)
-		{
-			throw new RuntimeException(e);
-		}
+		writeJavaListActionsClass(entity, getComponentPath(entity, FORMAT_LIST_PANEL_ACTIONS_JAVA));
+		writeHtmlListActionsFile(entity, getComponentPath(entity, FORMAT_LIST_PANEL_ACTIONS_HTML));
 	}
 
 	/**
-	 * @return java form
+	 * @param entity
+	 * @param path
 	 */
-	private String getJavaListClass()
+	private void writeJavaListClass(EntityContext entity, String path)
 	{
-		Map<String, Object> map = newMap();
+		Map<String, Object> map = newMap(entity);
 		map.put("actionKey", ResourceKey.GENERIC_ACTIONS_HEADER.key());
 		map.put("actionValue", ResourceKey.GENERIC_ACTIONS_HEADER.val());
 
-		map.put("javaComponent", getJavaComponent(FORMAT_LIST_PANEL_JAVA));
-		map.put("javaComponentEdit", getJavaComponent(FORMAT_EDIT_PANEL_JAVA));
+		map.put("javaComponent", getJavaComponent(entity, FORMAT_LIST_PANEL_JAVA));
+		map.put("javaComponentEdit", getJavaComponent(entity, FORMAT_EDIT_PANEL_JAVA));
 
-		map.put("actionsPanelComponent", getJavaComponent(FORMAT_LIST_PANEL_ACTIONS_JAVA));
+		map.put("actionsPanelComponent", getJavaComponent(entity, FORMAT_LIST_PANEL_ACTIONS_JAVA));
 
-		map.put("createRecordKey", ResourceKey.INSTANCE_CREATE_NEW.key(classSimpleName));
-		map.put("createRecordDefaultValue", ResourceKey.INSTANCE_CREATE_NEW.val(classSimpleName));
+		map.put("createRecordKey", ResourceKey.INSTANCE_CREATE_NEW.key(entity.getClassSimpleName()));
+		map.put("createRecordDefaultValue", ResourceKey.INSTANCE_CREATE_NEW.val(entity.getClassSimpleName()));
 
 
-		map.put("columns", getSortedAndFilteredFields(true));
-		return VelocityUtil.evaluateVelocityTemplate(templatePath + "ListPanel.java.tmpl", map, templateReferenceClass);
+		map.put("columns", entity.getMetadata().getViewFields());
+		writeTemplate(entity, path, templatePath + TEMPLATE_LIST_PANEL_JAVA, map);
 	}
 
 	/**
-	 * @return java form
+	 * @param entity
+	 * @param path
 	 */
-	private String getHtmlListFile()
+	private void writeHtmlListFile(EntityContext entity, String path)
 	{
-		Map<String, Object> map = newMap();
-		return VelocityUtil.evaluateVelocityTemplate(templatePath + "ListPanel.html.tmpl", map, templateReferenceClass);
+		Map<String, Object> map = newMap(entity);
+		writeTemplate(entity, path, templatePath + TEMPLATE_LIST_PANEL_HTML, map);
 	}
 
-	private String getJavaListActionsClass()
+	/**
+	 * @param entity
+	 * @param path
+	 */
+	private void writeJavaListActionsClass(EntityContext entity, String path)
 	{
-		Map<String, Object> map = newMap();
-		map.put("javaComponent", getJavaComponent(FORMAT_LIST_PANEL_ACTIONS_JAVA));
-		map.put("javaComponentList", getJavaComponent(FORMAT_LIST_PANEL_JAVA));
-		map.put("javaComponentEdit", getJavaComponent(FORMAT_EDIT_PANEL_JAVA));
-		map.put("javaComponentView", getJavaComponent(FORMAT_VIEW_PANEL_JAVA));
+		Map<String, Object> map = newMap(entity);
+		map.put("javaComponent", getJavaComponent(entity, FORMAT_LIST_PANEL_ACTIONS_JAVA));
+		map.put("javaComponentList", getJavaComponent(entity, FORMAT_LIST_PANEL_JAVA));
+		map.put("javaComponentEdit", getJavaComponent(entity, FORMAT_EDIT_PANEL_JAVA));
+		map.put("javaComponentView", getJavaComponent(entity, FORMAT_VIEW_PANEL_JAVA));
 
-		map.put("deletedRecordMessageKey", ResourceKey.MESSAGE_DELETED.key(classSimpleName));
-		map.put("deletedRecordMessageDefaultValue", ResourceKey.MESSAGE_DELETED.val(classSimpleName));
+		map.put("deletedRecordMessageKey", ResourceKey.MESSAGE_DELETED.key(entity.getClassSimpleName()));
+		map.put("deletedRecordMessageDefaultValue", ResourceKey.MESSAGE_DELETED.val(entity.getClassSimpleName()));
 
-		return VelocityUtil.evaluateVelocityTemplate(templatePath + "ListPanelActions.java.tmpl", map,
-			templateReferenceClass);
+		writeTemplate(entity, path, templatePath + TEMPLATE_LIST_PANEL_ACTIONS_JAVA, map);
 	}
 
-	private String getHtmlListActionsFile()
+	/**
+	 * @param entity
+	 * @param path
+	 */
+	private void writeHtmlListActionsFile(EntityContext entity, String path)
 	{
-		Map<String, Object> map = newMap();
+		Map<String, Object> map = newMap(entity);
 		map.put("editKey", ResourceKey.GENERIC_EDIT.key());
 		map.put("deleteKey", ResourceKey.GENERIC_DELETE.key());
 		map.put("viewKey", ResourceKey.GENERIC_VIEW.key());
 
-		return VelocityUtil.evaluateVelocityTemplate(templatePath + "ListPanelActions.html.tmpl", map,
-			templateReferenceClass);
+		writeTemplate(entity, path, templatePath + TEMPLATE_LIST_PANEL_ACTIONS_HTML, map);
 	}
 
 
@@ -315,66 +1089,55 @@ public class ReflectionUtil
 	/**
 	 * @param outputDirectoryPath
 	 */
-	private void createViewComponent()
+	private void createViewComponent(EntityContext entity)
 	{
-		createWicketComponent(FORMAT_VIEW_PANEL_HTML);
-		createWicketComponent(FORMAT_VIEW_PANEL_JAVA);
-
-		File java = getComponentFile(FORMAT_VIEW_PANEL_JAVA);
-		File html = getComponentFile(FORMAT_VIEW_PANEL_HTML);
-
-		try
-		{
-			java.write(getJavaViewClass());
-			html.write(getHtmlViewFile());
-		}
-		catch (IOException e)
-		{
-			throw new RuntimeException(e);
-		}
+		writeJavaViewClass(entity, getComponentPath(entity, FORMAT_VIEW_PANEL_JAVA));
+		writeHtmlViewFile(entity, getComponentPath(entity, FORMAT_VIEW_PANEL_HTML));
 	}
 
 	/**
-	 * @return java form
+	 * @param entity
+	 * @param path
 	 */
-	private String getJavaViewClass()
+	private void writeJavaViewClass(EntityContext entity, String path)
 	{
-		Map<String, Object> map = newMap();
-		map.put("javaComponent", getJavaComponent(FORMAT_VIEW_PANEL_JAVA));
-		map.put("javaComponentEdit", getJavaComponent(FORMAT_EDIT_PANEL_JAVA));
-		map.put("javaComponentList", getJavaComponent(FORMAT_LIST_PANEL_JAVA));
+		Map<String, Object> map = newMap(entity);
+		map.put("javaComponent", getJavaComponent(entity, FORMAT_VIEW_PANEL_JAVA));
+		map.put("javaComponentEdit", getJavaComponent(entity, FORMAT_EDIT_PANEL_JAVA));
+		map.put("javaComponentList", getJavaComponent(entity, FORMAT_LIST_PANEL_JAVA));
 
-		map.put("columns", getSortedAndFilteredFields(true));
+		map.put("columns", entity.getMetadata().getViewFields());
 
-		map.put("classHeaderKey", ResourceKey.CLASS_HEADER.key(classSimpleName));
-		map.put("classHeaderDefaultValue", ResourceKey.CLASS_HEADER.val(classSimpleName));
+		map.put("classHeaderKey", ResourceKey.CLASS_HEADER.key(entity.getClassSimpleName()));
+		map.put("classHeaderDefaultValue", ResourceKey.CLASS_HEADER.val(entity.getClassSimpleName()));
 
-		map.put("listRecordsKey", ResourceKey.INSTANCE_LIST.key(classSimpleName));
-		map.put("listRecordsDefaultValue", ResourceKey.INSTANCE_LIST.val(classSimpleName));
+		map.put("listRecordsKey", ResourceKey.INSTANCE_LIST.key(entity.getClassSimpleName()));
+		map.put("listRecordsDefaultValue", ResourceKey.INSTANCE_LIST.val(entity.getClassSimpleName()));
 
-		map.put("createRecordKey", ResourceKey.INSTANCE_CREATE_NEW.key(classSimpleName));
-		map.put("createRecordDefaultValue", ResourceKey.INSTANCE_CREATE_NEW.val(classSimpleName));
+		map.put("createRecordKey", ResourceKey.INSTANCE_CREATE_NEW.key(entity.getClassSimpleName()));
+		map.put("createRecordDefaultValue", ResourceKey.INSTANCE_CREATE_NEW.val(entity.getClassSimpleName()));
 
-		map.put("editRecordKey", ResourceKey.INSTANCE_EDIT.key(classSimpleName));
-		map.put("editRecordDefaultValue", ResourceKey.INSTANCE_EDIT.val(classSimpleName));
+		map.put("editRecordKey", ResourceKey.INSTANCE_EDIT.key(entity.getClassSimpleName()));
+		map.put("editRecordDefaultValue", ResourceKey.INSTANCE_EDIT.val(entity.getClassSimpleName()));
 
-		map.put("deleteRecordKey", ResourceKey.INSTANCE_DELETE.key(classSimpleName));
-		map.put("deleteRecordDefaultValue", ResourceKey.INSTANCE_DELETE.val(classSimpleName));
+		map.put("deleteRecordKey", ResourceKey.INSTANCE_DELETE.key(entity.getClassSimpleName()));
+		map.put("deleteRecordDefaultValue", ResourceKey.INSTANCE_DELETE.val(entity.getClassSimpleName()));
 
-		map.put("deletedRecordMessageKey", ResourceKey.MESSAGE_DELETED.key(classSimpleName));
-		map.put("deletedRecordMessageDefaultValue", ResourceKey.MESSAGE_DELETED.val(classSimpleName));
+		map.put("deletedRecordMessageKey", ResourceKey.MESSAGE_DELETED.key(entity.getClassSimpleName()));
+		map.put("deletedRecordMessageDefaultValue", ResourceKey.MESSAGE_DELETED.val(entity.getClassSimpleName()));
 
-		return VelocityUtil.evaluateVelocityTemplate(templatePath + "ViewPanel.java.tmpl", map, templateReferenceClass);
+		writeTemplate(entity, path, templatePath + TEMPLATE_VIEW_PANEL_JAVA, map);
 	}
 
 	/**
-	 * @return java form
+	 * @param entity
+	 * @param path
 	 */
-	private String getHtmlViewFile()
+	private void writeHtmlViewFile(EntityContext entity, String path)
 	{
-		Map<String, Object> map = newMap();
-		map.put("columns", getSortedAndFilteredFields(true));
-		return VelocityUtil.evaluateVelocityTemplate(templatePath + "ViewPanel.html.tmpl", map, templateReferenceClass);
+		Map<String, Object> map = newMap(entity);
+		map.put("columns", entity.getMetadata().getViewFields());
+		writeTemplate(entity, path, templatePath + TEMPLATE_VIEW_PANEL_HTML, map);
 	}
 
 	/*
@@ -385,30 +1148,20 @@ public class ReflectionUtil
 	/**
 	 * @param outputDirectoryPath
 	 */
-	private void createModelComponent()
+	private void createModelComponent(EntityContext entity)
 	{
-		createWicketComponent(FORMAT_MODEL_JAVA);
-
-		File java = getComponentFile(FORMAT_MODEL_JAVA);
-
-		try
-		{
-			java.write(getJavaModelClass());
-		}
-		catch (IOException e)
-		{
-			throw new RuntimeException(e);
-		}
+		writeJavaModelClass(entity, getComponentPath(entity, FORMAT_MODEL_JAVA));
 	}
 
 	/**
-	 * @return java form
+	 * @param entity
+	 * @param path
 	 */
-	private String getJavaModelClass()
+	private void writeJavaModelClass(EntityContext entity, String path)
 	{
-		Map<String, Object> map = newMap();
+		Map<String, Object> map = newMap(entity);
 
-		return VelocityUtil.evaluateVelocityTemplate(templatePath + "Model.java.tmpl", map, templateReferenceClass);
+		writeTemplate(entity, path, templatePath + TEMPLATE_MODEL_JAVA, map);
 	}
 
 	/*
@@ -419,30 +1172,20 @@ public class ReflectionUtil
 	/**
 	 * @param outputDirectoryPath
 	 */
-	private void createFactoryComponent()
+	private void createFactoryComponent(EntityContext entity)
 	{
-		createWicketComponent(FORMAT_FACTORY_JAVA);
-
-		File java = getComponentFile(FORMAT_FACTORY_JAVA);
-
-		try
-		{
-			java.write(getJavaFactoryClass());
-		}
-		catch (IOException e)
-		{
-			throw new RuntimeException(e);
-		}
+		writeJavaFactoryClass(entity, getComponentPath(entity, FORMAT_FACTORY_JAVA));
 	}
 
 	/**
-	 * @return java form
+	 * @param entity
+	 * @param path
 	 */
-	private String getJavaFactoryClass()
+	private void writeJavaFactoryClass(EntityContext entity, String path)
 	{
-		Map<String, Object> map = newMap();
+		Map<String, Object> map = newMap(entity);
 
-		return VelocityUtil.evaluateVelocityTemplate(templatePath + "Factory.java.tmpl", map, templateReferenceClass);
+		writeTemplate(entity, path, templatePath + TEMPLATE_FACTORY_JAVA, map);
 	}
 
 	/*
@@ -454,83 +1197,66 @@ public class ReflectionUtil
 	/**
 	 * @param outputDirectoryPath
 	 */
-	private void createEditComponent()
+	private String createEditComponent(EntityContext entity)
 	{
-		createWicketComponent(FORMAT_EDIT_PANEL_JAVA);
-		createWicketComponent(FORMAT_EDIT_PANEL_HTML);
-		createWicketComponent(FORMAT_EDIT_PANEL_PROPERTIES);
-
-		File java = getComponentFile(FORMAT_EDIT_PANEL_JAVA);
-		File html = getComponentFile(FORMAT_EDIT_PANEL_HTML);
-		File properties = getComponentFile(FORMAT_EDIT_PANEL_PROPERTIES);
-		try
-		{
-
-			java.write(getJavaEditClass());
-			html.write(getHtmlEditFile());
-
-			String props = getPropertiesString();
-			properties.write(props);
-			mergedProperties += props;
-			mergedProperties += "\n\n";
-
-		}
-		catch (IOException e)
-		{
-			throw new RuntimeException(e);
-		}
+		writeJavaEditClass(entity, getComponentPath(entity, FORMAT_EDIT_PANEL_JAVA));
+		writeHtmlEditFile(entity, getComponentPath(entity, FORMAT_EDIT_PANEL_HTML));
 
+		String props = getPropertiesString(entity.getMetadata());
+		writeProperties(getComponentPath(entity, FORMAT_EDIT_PANEL_PROPERTIES), props);
+		return props;
 	}
 
 	/**
-	 * @param clazz
-	 * @return java form
+	 * @param entity
+	 * @param path
 	 */
-	private String getJavaEditClass()
+	private void writeJavaEditClass(EntityContext entity, String path)
 	{
-		Map<String, Object> map = newMap();
+		Map<String, Object> map = newMap(entity);
 
 
-		map.put("javaComponent", getJavaComponent(FORMAT_EDIT_PANEL_JAVA));
-		map.put("javaComponentList", getJavaComponent(FORMAT_LIST_PANEL_JAVA));
+		map.put("javaComponent", getJavaComponent(entity, FORMAT_EDIT_PANEL_JAVA));
+		map.put("javaComponentList", getJavaComponent(entity, FORMAT_LIST_PANEL_JAVA));
 
-		map.put("classResourceKey", ResourceKey.CLASS_HEADER.key(classSimpleName));
+		map.put("classResourceKey", ResourceKey.CLASS_HEADER.key(entity.getClassSimpleName()));
 
-		map.put("listRecordsKey", ResourceKey.INSTANCE_LIST.key(classSimpleName));
-		map.put("listRecordsDefaultValue", ResourceKey.INSTANCE_LIST.val(classSimpleName));
+		map.put("listRecordsKey", ResourceKey.INSTANCE_LIST.key(entity.getClassSimpleName()));
+		map.put("listRecordsDefaultValue", ResourceKey.INSTANCE_LIST.val(entity.getClassSimpleName()));
 
-		map.put("updateRecordKey", ResourceKey.INSTANCE_UPDATE.key(classSimpleName));
-		map.put("updateRecordDefaultValue", ResourceKey.INSTANCE_UPDATE.val(classSimpleName));
+		map.put("updateRecordKey", ResourceKey.INSTANCE_UPDATE.key(entity.getClassSimpleName()));
+		map.put("updateRecordDefaultValue", ResourceKey.INSTANCE_UPDATE.val(entity.getClassSimpleName()));
 
-		map.put("saveRecordKey", ResourceKey.INSTANCE_SAVE.key(classSimpleName));
-		map.put("saveRecordDefaultValue", ResourceKey.INSTANCE_SAVE.val(classSimpleName));
+		map.put("saveRecordKey", ResourceKey.INSTANCE_SAVE.key(entity.getClassSimpleName()));
+		map.put("saveRecordDefaultValue", ResourceKey.INSTANCE_SAVE.val(entity.getClassSimpleName()));
 
-		map.put("deleteRecordKey", ResourceKey.INSTANCE_DELETE.key(classSimpleName));
-		map.put("deleteRecordDefaultValue", ResourceKey.INSTANCE_DELETE.val(classSimpleName));
+		map.put("deleteRecordKey", ResourceKey.INSTANCE_DELETE.key(entity.getClassSimpleName()));
+		map.put("deleteRecordDefaultValue", ResourceKey.INSTANCE_DELETE.val(entity.getClassSimpleName()));
 
-		map.put("createdRecordMessageKey", ResourceKey.MESSAGE_SAVED.key(classSimpleName));
-		map.put("createdRecordMessageDefaultValue", ResourceKey.MESSAGE_SAVED.val(classSimpleName));
+		map.put("createdRecordMessageKey", ResourceKey.MESSAGE_SAVED.key(entity.getClassSimpleName()));
+		map.put("createdRecordMessageDefaultValue", ResourceKey.MESSAGE_SAVED.val(entity.getClassSimpleName()));
 
-		map.put("updatedRecordMessageKey", ResourceKey.MESSAGE_UPDATED.key(classSimpleName));
-		map.put("updatedRecordMessageDefaultValue", ResourceKey.MESSAGE_UPDATED.val(classSimpleName));
+		map.put("updatedRecordMessageKey", ResourceKey.MESSAGE_UPDATED.key(entity.getClassSimpleName()));
+		map.put("updatedRecordMessageDefaultValue", ResourceKey.MESSAGE_UPDATED.val(entity.getClassSimpleName()));
 
-		map.put("fields", getSortedAndFilteredFields(false));
+		map.put("fields", entity.getMetadata().getEditFields());
 
-		return VelocityUtil.evaluateVelocityTemplate(templatePath + "EditPanel.java.tmpl", map, templateReferenceClass);
+		writeTemplate(entity, path, templatePath + TEMPLATE_EDIT_PANEL_JAVA, map);
 	}
 
 	/**
-	 * @return java form
+	 * @param entity
+	 * @param path
 	 */
-	private String getHtmlEditFile()
+	private void writeHtmlEditFile(EntityContext entity, String path)
 	{
-		Map<String, Object> map = newMap();
-		map.put("fields", getSortedAndFilteredFields(false));
+		Map<String, Object> map = newMap(entity);
+		map.put("fields", entity.getMetadata().getEditFields());
 
 		map.put("submitKey", ResourceKey.GENERIC_SUBMIT.key());
 		map.put("submitValue", ResourceKey.GENERIC_SUBMIT.val());
 
-		return VelocityUtil.evaluateVelocityTemplate(templatePath + "EditPanel.html.tmpl", map, templateReferenceClass);
+		writeTemplate(entity, path, templatePath + TEMPLATE_EDIT_PANEL_HTML, map);
 	}
 
 	/*
@@ -539,59 +1265,158 @@ public class ReflectionUtil
 	 * P R O P E R T I E S
 	 */
 	/**
-	 * @param outputDirectoryPath
+	 * Writes properties of all generated entities into <code>&lt;Application&gt;.properties</code>,
+	 * named after the class of the current {@link Application}.
+	 *
+	 * @see #createMergedProperties(String)
 	 */
 	public void createMergedProperties()
 	{
-		File properties = getComponentFile(Application.get().getClass().getSimpleName() + ".properties", false);
+		createMergedProperties(Application.get().getClass().getSimpleName());
+	}
+
+	/**
+	 * Writes properties of all generated entities into <code>&lt;applicationName&gt;.properties</code>.
+	 * When {@link #setResourceBundle(boolean) enabled}, the same labels together with the common
+	 * ones are written as <code>&lt;applicationName&gt;Resources</code> {@link ListResourceBundle}
+	 * too.
+	 *
+	 * @param applicationName
+	 *            simple name of the application class
+	 */
+	public void createMergedProperties(String applicationName)
+	{
+		Args.notEmpty(applicationName, "applicationName");
+
+		long start = System.nanoTime();
+		String merged = getMergedPropertiesString();
+		writeProperties(applicationName + ".properties", merged);
+
+		if (resourceBundle)
+		{
+			Map<String, String> labels = new HashMap<String, String>();
+			readProperties(labels, getCommonPropertiesString());
+			readProperties(labels, merged);
+
+			String bundleName = applicationName + "Resources";
+			write(bundleName + ".java",
+				ResourceBundleGenerator.generate(outputPackage, bundleName, labels),
+				Charset.forName(VelocityUtil.ENCODING));
+		}
+
+		long nanos = System.nanoTime() - start;
+		int entities;
+		synchronized (this)
+		{
+			entities = mergedProperties.size();
+		}
+		for (GenerationListener listener : listeners)
+		{
+			listener.onMerge(entities, merged.length(), nanos);
+		}
+	}
+
+	/**
+	 * Reads labels the same way they are read from properties files at runtime.
+	 */
+	private static void readProperties(Map<String, String> labels, String content)
+	{
+		Properties properties = new Properties();
 		try
 		{
-			properties.write(mergedProperties + "\n");
+			properties.load(new StringReader(content));
 		}
 		catch (IOException e)
 		{
 			throw new RuntimeException(e);
 		}
+		for (String key : properties.stringPropertyNames())
+		{
+			labels.put(key, properties.getProperty(key));
+		}
+	}
+
+	/**
+	 * @return properties of all entities generated so far, separated by empty lines
+	 */
+	private synchronized String getMergedPropertiesString()
+	{
+		int length = 1;
+		for (String properties : mergedProperties.values())
+		{
+			length += properties.length() + 2;
+		}
 
+		StringBuilder merged = new StringBuilder(length);
+		for (String properties : mergedProperties.values())
+		{
+			merged.append(properties).append("\n\n");
+		}
+		return merged.append('\n').toString();
 	}
 
 	/**
-	 * @param clazz
+	 * @param metadata
 	 * @return string
 	 */
-	public String getPropertiesString()
+	public String getPropertiesString(EntityMetadata metadata)
 	{
-		String str = "#####################\n# ";
-		str += classSimpleName;
-		str += "\n#####################\n";
+		String classSimpleName = metadata.getClassSimpleName();
+
+		StringBuilder str = new StringBuilder(256 + metadata.getPropertiesFields().size() * 128);
+		str.append("#####################\n# ");
+		str.append(classSimpleName);
+		str.append("\n#####################\n");
 
-		str += "#labels used when creating / editing record\n";
+		str.append("#labels used when creating / editing record\n");
 
 		List<ResourceKey> instanceKeys = ResourceKey.getInstanceKeys();
 		for (ResourceKey key : instanceKeys)
 		{
-			str += String.format("%s=%s\n", key.key(classSimpleName), key.val(classSimpleName));
+			appendProperty(str, key.key(classSimpleName), key.val(classSimpleName));
 		}
 
-		str += "#---------------------\n";
+		str.append("#---------------------\n");
 
-		List<FieldWrapper> fields = getSortedAndFilteredFields(true, true);
-		Collections.sort(fields, new Comparator<FieldWrapper>()
+		for (FieldWrapper wrapper : metadata.getPropertiesFields())
 		{
-			@Override
-			public int compare(FieldWrapper o1, FieldWrapper o2)
-			{
-				return o1.getName().compareTo(o2.getName());
-			}
-		});
+			appendProperty(str, wrapper.getResourceKey(), wrapper.getNameCapitalized());
+			appendProperty(str, wrapper.getResourceHelpKey(), "");
+		}
+
+		return str.toString();
+	}
+
+	/**
+	 * @return properties of the entity generated last
+	 * @deprecated the entity generated last is not defined when entities are generated
+	 *             concurrently, use {@link #getPropertiesString(EntityMetadata)}
+	 */
+	@Deprecated
+	public String getPropertiesString()
+	{
+		return getPropertiesString(getLastMetadata());
+	}
+
+	/**
+	 * @return class resource namespace of the entity generated last
+	 * @deprecated the entity generated last is not defined when entities are generated
+	 *             concurrently, use {@link EntityMetadata#getClassNamespace()}
+	 */
+	@Deprecated
+	public String getClassNamespace()
+	{
+		return getLastMetadata().getClassNamespace();
+	}
 
-		for (FieldWrapper wrapper : fields)
+	private EntityMetadata getLastMetadata()
+	{
+		EntityMetadata metadata = lastMetadata;
+		if (metadata == null)
 		{
-			str += String.format("%s=%s\n", wrapper.getResourceKey(), wrapper.getNameCapitalized());
-			str += String.format("%s=\n", wrapper.getResourceHelpKey());
+			throw new IllegalStateException("No entity was generated yet.");
 		}
-
-		return str;
+		return metadata;
 	}
 
 	/**
@@ -599,30 +1424,46 @@ public class ReflectionUtil
 	 */
 	public String getCommonPropertiesString()
 	{
-		String str = "###########################\n# ";
-		str += "\n# C O M M O N   P R O P S\n";
-		str += "# --------------------------\n";
-		str += "# place into aplication scope properties\n";
-		str += "###########################\n";
+		StringBuilder str = new StringBuilder(1024);
+		str.append("###########################\n# ");
+		str.append("\n# C O M M O N   P R O P S\n");
+		str.append("# --------------------------\n");
+		str.append("# place into aplication scope properties\n");
+		str.append("###########################\n");
 
 		List<ResourceKey> genericKeys = ResourceKey.getGenericKeys();
 		for (ResourceKey key : genericKeys)
 		{
-			str += String.format("%s=%s\n", key.key(), key.val());
+			appendProperty(str, key.key(), key.val());
 		}
-		str += "#---------------------\n";
+		str.append("#---------------------\n");
+
+		return str.toString();
+	}
 
-		return str;
+	private static void appendProperty(StringBuilder str, String key, String value)
+	{
+		str.append(key).append('=').append(value).append('\n');
 	}
 
 
 	/**
+	 * @param domainClass
 	 * @return class resource namespace used in .properties, taken from
 	 *         {@link ClassResourceNamespace} annotation
 	 */
-	public String getClassNamespace()
+	public static String getClassNamespace(Class<?> domainClass)
 	{
-		return getClassNamespace(domainClass);
+
+		ClassResourceNamespace namespace = domainClass.getAnnotation(ClassResourceNamespace.class);
+		if (namespace != null)
+		{
+			return namespace.value();
+		}
+		else
+		{
+			return domainClass.getName();
+		}
 	}
 
 	/**
@@ -630,13 +1471,12 @@ public class ReflectionUtil
 	 * @return class resource namespace used in .properties, taken from
 	 *         {@link ClassResourceNamespace} annotation
 	 */
-	public static String getClassNamespace(Class<?> domainClass)
+	public static String getClassNamespace(ClassInfo domainClass)
 	{
-
-		ClassResourceNamespace namespace = domainClass.getAnnotation(ClassResourceNamespace.class);
+		AnnotationInfo namespace = domainClass.getAnnotation(ClassResourceNamespace.class.getName());
 		if (namespace != null)
 		{
-			return namespace.value();
+			return namespace.getString("value", domainClass.getName());
 		}
 		else
 		{
@@ -651,43 +1491,93 @@ public class ReflectionUtil
 	 * U T I L S
 	 */
 	/**
-	 * @param fileFormatPattern
-	 * @param outputDirectoryPath
+	 * Renders template and writes the result into the output sink. The template is streamed
+	 * straight into the sink, only the {@link #setWriterThreads(int) writers} get the whole
+	 * rendered content, since rendering and writing are separate stages then.
+	 *
+	 * @param entity
+	 * @param path
+	 * @param templateName
+	 * @param map
 	 */
-	private void createWicketComponent(String fileFormatPattern)
+	private void writeTemplate(EntityContext entity, String path, String templateName, Map<String, Object> map)
+	{
+		Charset charset = Charset.forName(VelocityUtil.ENCODING);
+		WritePipeline writing = pipeline;
+		if (writing == null)
+		{
+			streamTemplate(entity, path, templateName, map, charset);
+			return;
+		}
+
+		long start = System.nanoTime();
+		final StringWriter content = new StringWriter(8192);
+		velocity.evaluate(templateName, map, templateReferenceClass, content);
+		fireRender(entity, templateName, content.getBuffer().length(), System.nanoTime() - start);
+		writing.submit(() -> writeNow(path, content.getBuffer(), charset));
+	}
+
+	private void streamTemplate(EntityContext entity, String path, String templateName, Map<String, Object> map,
+		Charset charset)
+	{
+		try
+		{
+			FileWriteEvent event = FlightRecorderSupport.isAvailable() ? FileWriteEvent.start() : null;
+			long start = System.nanoTime();
+			TemplateContent content = new TemplateContent(velocity, templateName, map, templateReferenceClass);
+			boolean written = getOutputSink().write(path, content, charset);
+			long nanos = System.nanoTime() - start;
+
+			// rendering and writing overlap, the writing is what is left after rendering
+			fireRender(entity, templateName, content.length, content.nanos);
+			fireWrite(path, written, content.length, nanos - content.nanos, event);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void fireRender(EntityContext entity, String templateName, int length, long nanos)
 	{
-		createWicketComponent(fileFormatPattern, true);
+		for (GenerationListener listener : listeners)
+		{
+			listener.onRender(entity.getClassName(), templateName, length, nanos);
+		}
 	}
 
 	/**
-	 * @param fileFormatPattern
-	 * @param inClassSubdirectory
-	 * @param outputDirectoryPath
+	 * Properties are written in platform encoding, the same as {@link File#write(String)} does.
+	 *
+	 * @param path
+	 * @param content
 	 */
-	private void createWicketComponent(String fileFormatPattern, boolean inClassSubdirectory)
+	private void writeProperties(String path, String content)
 	{
-		File file;
+		write(path, content, Charset.defaultCharset());
+	}
 
-		if (Strings.isEmpty(outputDirectoryPath) == false)
+	private void write(final String path, final CharSequence content, final Charset charset)
+	{
+		WritePipeline writing = pipeline;
+		if (writing != null)
 		{
-			file = getComponentFile(fileFormatPattern, inClassSubdirectory);
-			// file.mkdirs();
-			if (file.exists())
-			{
-				// throw new IllegalStateException("Resource " + file.getAbsolutePath() +
-				// " already exists!");
-			}
+			writing.submit(() -> writeNow(path, content, charset));
 		}
 		else
 		{
-			throw new IllegalStateException("Path cannot be null.");
+			writeNow(path, content, charset);
 		}
+	}
 
+	private void writeNow(String path, CharSequence content, Charset charset)
+	{
 		try
 		{
-			logger.info("Creating new component on path " + file.getAbsolutePath());
-			file.getParentFolder().mkdirs();
-			file.createNewFile();
+			FileWriteEvent event = FlightRecorderSupport.isAvailable() ? FileWriteEvent.start() : null;
+			long start = System.nanoTime();
+			boolean written = getOutputSink().write(path, content, charset);
+			fireWrite(path, written, content.length(), System.nanoTime() - start, event);
 		}
 		catch (IOException e)
 		{
@@ -695,182 +1585,89 @@ public class ReflectionUtil
 		}
 	}
 
-	private File getComponentFile(String formatPattern, boolean inClassSubdirectory)
+	private void fireWrite(String path, boolean written, int length, long nanos, FileWriteEvent event)
 	{
-		if (inClassSubdirectory)
+		if (event != null)
+		{
+			event.commit(path, length, written);
+		}
+		if (written)
+		{
+			logger.debug("Writing component on path {}", path);
+			statistics.fileWritten();
+		}
+		else
+		{
+			logger.debug("Unchanged component on path {}", path);
+			statistics.fileSkipped();
+		}
+
+		for (GenerationListener listener : listeners)
 		{
-			return new File(getFormattedPath(true, getFormattedPath(outputDirectoryPath, classSimpleName.toLowerCase()),
-				String.format(formatPattern, domainClass.getSimpleName())));
+			if (written)
+			{
+				listener.onWrite(path, length, nanos);
+			}
+			else
+			{
+				listener.onSkip(path, length, nanos);
+			}
 		}
-		return new File(
-			getFormattedPath(true, outputDirectoryPath, String.format(formatPattern, domainClass.getSimpleName())));
 	}
 
-	private File getComponentFile(String formatPattern)
+	private String getComponentPath(EntityContext entity, String formatPattern)
+	{
+		return getComponentPath(entity.getClassSimpleName(), formatPattern);
+	}
+
+	private static String getComponentPath(String classSimpleName, String formatPattern)
 	{
-		return getComponentFile(formatPattern, true);
+		return classSimpleName.toLowerCase() + "/" + String.format(formatPattern, classSimpleName);
 	}
 
-	private String getJavaComponent(String filenameFormatString)
+	private static String getJavaComponent(EntityContext entity, String filenameFormatString)
 	{
-		return StringUtils.substringBeforeLast(String.format(filenameFormatString, domainClass.getSimpleName()), ".");
+		return StringUtils.substringBeforeLast(String.format(filenameFormatString, entity.getClassSimpleName()), ".");
 	}
 
-	private String getEntityImport()
+	private static String getEntityImport(EntityContext entity)
 	{
-		return String.format("import %s;", domainClass.getCanonicalName());
+		return String.format("import %s;", entity.getMetadata().getCanonicalName());
 	}
 
-	private Map<String, Object> newMap()
+	private Map<String, Object> newMap(EntityContext entity)
 	{
 		HashMap<String, Object> map = new HashMap<String, Object>();
 
-		map.put("package", outputReferenceClass.getPackage().getName() + "." + classSimpleName.toLowerCase());
+		map.put("package",
+			outputPackage + "." + entity.getClassSimpleName().toLowerCase());
 
-		map.put("className", domainClass.getSimpleName());
-		map.put("entityImport", getEntityImport());
+		map.put("className", entity.getClassSimpleName());
+		map.put("entityImport", getEntityImport(entity));
 
 
 		/***************************************************
 		 * Factory
 		 ****************************************************/
-		if (factoryClazz != null)
+		String factoryClassName = entity.getFactoryClassName();
+		if (factoryClassName != null)
 		{
-			map.put("factoryComponent", factoryClazz.getSimpleName());
-			map.put("factoryImport", String.format("import %s;\n", factoryClazz.getCanonicalName()));
+			map.put("factoryComponent", ClassInfo.getSimpleName(factoryClassName));
+			map.put("factoryImport", String.format("import %s;\n", factoryClassName));
 		}
 		else
 		{
-			map.put("factoryComponent", getJavaComponent(FORMAT_FACTORY_JAVA));
+			map.put("factoryComponent", getJavaComponent(entity, FORMAT_FACTORY_JAVA));
 			map.put("factoryImport", "");
 		}
 
 
-		/***************************************************
-		 * Enums
-		 ****************************************************/
-		String imports = "";
-		Set<Class<?>> importTypes = new HashSet<Class<?>>();
-		List<FieldWrapper> fields = getSortedAndFilteredFields(false, false);
-		for (FieldWrapper field : fields)
-		{
-			if (field.isEnumeration() || field.isOfUnknownType())
-			{
-				importTypes.add(field.getField().getType());
-			}
-		}
-		for (Class<?> c : importTypes)
-		{
-			imports += String.format("import %s;\n", c.getCanonicalName());
-		}
-
-		map.put("requiredImports", imports);
+		map.put("entity", entity.getMetadata());
+		map.put("requiredImports", entity.getMetadata().getRequiredImports());
 
 		return map;
 	}
 
-	private List<FieldWrapper> getSortedAndFilteredFields(boolean viewMode)
-	{
-		return getSortedAndFilteredFields(viewMode, false);
-	}
-
-	private List<FieldWrapper> getSortedAndFilteredFields(boolean viewMode, boolean ignoreSkipViewAnnotation)
-	{
-		filteredFields = null;
-		if (filteredFields == null)
-		{
-			filteredFields = new ArrayList<FieldWrapper>();
-
-			Field[] declaredFields = domainClass.getDeclaredFields();
-			List<Field> fields = Arrays.asList(declaredFields);
-
-			boolean includeAnnotationPresent = false;
-			for (Field field : fields)
-			{
-				if (field.getAnnotation(IncludeField.class) != null)
-				{
-					includeAnnotationPresent = true;
-					break;
-				}
-			}
-
-
-			for (Field field : fields)
-			{
-
-				SkipField skipAnnotation;
-				if (ignoreSkipViewAnnotation == false && (skipAnnotation = field.getAnnotation(SkipField.class)) != null)
-				{
-					if (viewMode)
-					{
-						if (skipAnnotation.includeInView() == false)
-						{
-							continue;
-						}
-					}
-					else
-					{
-						if (skipAnnotation.includeInEdit() == false)
-						{
-							continue;
-						}
-					}
-				}
-				if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()))
-				{
-					continue;
-				}
-				FieldWrapper wrapper = JavaTypeEnum.getFieldWrapper(field);
-
-				// when annotation is present, only include fields with this annotation and no
-				// others
-				if (includeAnnotationPresent)
-				{
-					if (field.getAnnotation(IncludeField.class) != null)
-					{
-						filteredFields.add(wrapper);
-					}
-				}
-				else
-				{
-					filteredFields.add(wrapper);
-				}
-
-			}
-
-			Collections.sort(filteredFields, new Comparator<FieldWrapper>()
-			{
-				public int compare(FieldWrapper o1, FieldWrapper o2)
-				{
-					Order field1Order = o1.getField().getAnnotation(Order.class);
-					Order field2Order = o2.getField().getAnnotation(Order.class);
-					if (field1Order != null && field2Order != null)
-					{
-						if (field1Order.value() == field2Order.value())
-							return 0;
-
-						if (field1Order.value() < field2Order.value())
-							return -1;
-
-						return 1;
-
-					}
-					if (field1Order == null && field2Order == null)
-					{
-						return 0;
-					}
-
-					if (field1Order == null)
-						return 1;
-
-					return -1;
-				}
-			});
-		}
-
-		return filteredFields;
-	}
-
 	/**
 	 * Naformatuje danou cestu tak, aby mela na konci lomitko.
 	 *
@@ -919,6 +1716,74 @@ public class ReflectionUtil
 		}
 		return sb.toString();
 	}
+
+	/**
+	 * Template rendered straight into the output sink, counts the characters and the time spent
+	 * rendering.
+	 */
+	private static final class TemplateContent implements ContentWriter
+	{
+		private final VelocityUtil velocity;
+		private final String templateName;
+		private final Map<String, Object> map;
+		private final Class<?> templateReferenceClass;
+
+		private int length;
+		private long nanos;
+
+		private TemplateContent(VelocityUtil velocity, String templateName, Map<String, Object> map,
+			Class<?> templateReferenceClass)
+		{
+			this.velocity = velocity;
+			this.templateName = templateName;
+			this.map = map;
+			this.templateReferenceClass = templateReferenceClass;
+		}
+
+		@Override
+		public void writeTo(Writer writer)
+		{
+			long start = System.nanoTime();
+			length = (int)velocity.evaluate(templateName, map, templateReferenceClass, writer);
+			nanos = System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Everything needed to generate one entity, so that several entities can be generated at
+	 * once by the same generator.
+	 */
+	private static final class EntityContext
+	{
+		private final EntityMetadata metadata;
+		private final String factoryClassName;
+
+		private EntityContext(EntityMetadata metadata, String factoryClassName)
+		{
+			this.metadata = metadata;
+			this.factoryClassName = factoryClassName;
+		}
+
+		private EntityMetadata getMetadata()
+		{
+			return metadata;
+		}
+
+		private String getClassName()
+		{
+			return metadata.getClassName();
+		}
+
+		private String getClassSimpleName()
+		{
+			return metadata.getClassSimpleName();
+		}
+
+		private String getFactoryClassName()
+		{
+			return factoryClassName;
+		}
+	}
 }
 
 // Map<String, Object> variables = new HashMap<String, Object>();
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import java.util.ListResourceBundle;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.wicket.resource.loader.BundleStringResourceLoader;
+
+/**
+ * Generates source of a {@link ListResourceBundle} with the given keys, so that labels can be
+ * resolved by {@link BundleStringResourceLoader} without parsing properties files at runtime.
+ * <p>
+ * Entries are initialized in chunks, one method per chunk, to stay within the size limit of a
+ * method.
+ *
+ * @author rozkovec
+ */
+final class ResourceBundleGenerator
+{
+	/** entries initialized by one method */
+	private static final int CHUNK_SIZE = 500;
+
+	private ResourceBundleGenerator()
+	{
+	}
+
+	/**
+	 * @param packageName
+	 * @param className
+	 * @param entries
+	 *            keys and values, written sorted by key
+	 * @return java source of the bundle
+	 */
+	static String generate(String packageName, String className, Map<String, String> entries)
+	{
+		Map<String, String> sorted = new TreeMap<String, String>(entries);
+		int chunks = (sorted.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+		StringBuilder java = new StringBuilder(256 + sorted.size() * 96);
+		java.append("package ").append(packageName).append(";\n\n");
+		java.append("import java.util.ListResourceBundle;\n\n");
+		java.append("/**\n");
+		java.append(" * Generated labels, register with\n");
+		java.append(" * <code>new BundleStringResourceLoader(\"").append(packageName).append('.').append(
+			className).append("\")</code>\n");
+		java.append(" */\n");
+		java.append("public class ").append(className).append(" extends ListResourceBundle\n{\n");
+		java.append("\tprivate static final Object[][] CONTENTS = new Object[").append(sorted.size()).append("][];\n\n");
+
+		java.append("\tstatic\n\t{\n");
+		for (int chunk = 0; chunk < chunks; chunk++)
+		{
+			java.append("\t\tinit").append(chunk).append("();\n");
+		}
+		java.append("\t}\n\n");
+
+		int index = 0;
+		for (Map.Entry<String, String> entry : sorted.entrySet())
+		{
+			if (index % CHUNK_SIZE == 0)
+			{
+				if (index > 0)
+				{
+					java.append("\t}\n\n");
+				}
+				java.append("\tprivate static void init").append(index / CHUNK_SIZE).append("()\n\t{\n");
+			}
+			java.append("\t\tCONTENTS[").append(index).append("] = new Object[] { ");
+			appendLiteral(java, entry.getKey());
+			java.append(", ");
+			appendLiteral(java, entry.getValue());
+			java.append(" };\n");
+			index++;
+		}
+		if (index > 0)
+		{
+			java.append("\t}\n\n");
+		}
+
+		java.append("\t@Override\n");
+		java.append("\tprotected Object[][] getContents()\n\t{\n");
+		java.append("\t\treturn CONTENTS;\n");
+		java.append("\t}\n");
+		java.append("}\n");
+		return java.toString();
+	}
+
+	/**
+	 * Appends java string literal, everything outside printable ASCII is escaped so that the
+	 * source does not depend on encoding.
+	 */
+	private static void appendLiteral(StringBuilder java, String value)
+	{
+		java.append('"');
+		for (int i = 0; i < value.length(); i++)
+		{
+			char c = value.charAt(i);
+			switch (c)
+			{
+				case '"' :
+					java.append("\\\"");
+					break;
+				case '\\' :
+					java.append("\\\\");
+					break;
+				case '\n' :
+					java.append("\\n");
+					break;
+				case '\r' :
+					java.append("\\r");
+					break;
+				case '\t' :
+					java.append("\\t");
+					break;
+				default :
+					if (c < 0x20 || c > 0x7e)
+					{
+						java.append(String.format("\\u%04x", (int)c));
+					}
+					else
+					{
+						java.append(c);
+					}
+			}
+		}
+		java.append('"');
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import name.berries.wicket.reflection.model.ClassInfo;
+import name.berries.wicket.reflection.model.FieldInfo;
+
+/**
+ * Flight recorder event of a field whose type is not registered in {@link JavaTypeEnum}, so its
+ * java type was guessed from the annotations.
+ *
+ * @author rozkovec
+ */
+@Name("name.berries.TypeFallback")
+@Label("Field Type Fallback")
+@Category("Wicket Code Generator")
+@StackTrace(false)
+final class TypeFallbackEvent extends jdk.jfr.Event
+{
+	@Label("Field")
+	String field;
+
+	@Label("Declared Type")
+	String declaredType;
+
+	@Label("Resolved Type")
+	@Description("Java type guessed from the annotations of the field")
+	String resolvedType;
+
+	static void emit(ClassInfo declaringClass, FieldInfo field, JavaTypeEnum resolvedType)
+	{
+		TypeFallbackEvent event = new TypeFallbackEvent();
+		if (event.shouldCommit())
+		{
+			event.field = declaringClass.getName() + "." + field.getName();
+			event.declaredType = field.getTypeName();
+			event.resolvedType = resolvedType.name();
+			event.commit();
+		}
+	}
+}
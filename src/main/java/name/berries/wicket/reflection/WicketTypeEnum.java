@@ -16,6 +16,8 @@
  */
 package name.berries.wicket.reflection;
 
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * @author rozkovec
@@ -44,46 +46,41 @@ public enum WicketTypeEnum {
 	/** */
 	CheckBox;
 
-	/**
-	 * @param typeEnum
-	 * @return this
-	 */
-	public static WicketTypeEnum get(JavaTypeEnum typeEnum)
+	private static final Map<JavaTypeEnum, WicketTypeEnum> BY_JAVA_TYPE = new EnumMap<JavaTypeEnum, WicketTypeEnum>(
+		JavaTypeEnum.class);
+
+	static
 	{
-		switch (typeEnum)
-		{
-			case File :
-				return FileUploadField;
+		BY_JAVA_TYPE.put(JavaTypeEnum.File, FileUploadField);
 
-			case Text :
-				return TextArea;
+		BY_JAVA_TYPE.put(JavaTypeEnum.Text, TextArea);
 
-			case String :
-			case BigDecimal :
-			case Double :
-			case Integer :
-			case Long :
-				return TextField;
+		BY_JAVA_TYPE.put(JavaTypeEnum.String, TextField);
+		BY_JAVA_TYPE.put(JavaTypeEnum.BigDecimal, TextField);
+		BY_JAVA_TYPE.put(JavaTypeEnum.Double, TextField);
+		BY_JAVA_TYPE.put(JavaTypeEnum.Integer, TextField);
+		BY_JAVA_TYPE.put(JavaTypeEnum.Long, TextField);
 
-			case Date :
-				return DateTextField;
+		BY_JAVA_TYPE.put(JavaTypeEnum.Date, DateTextField);
 
-			case List :
-				return ListMultipleChoice;
+		BY_JAVA_TYPE.put(JavaTypeEnum.List, ListMultipleChoice);
 
-			case Set :
-			case Object :
-			case Enum :
-				return DropDownChoice;
+		BY_JAVA_TYPE.put(JavaTypeEnum.Set, DropDownChoice);
+		BY_JAVA_TYPE.put(JavaTypeEnum.Object, DropDownChoice);
+		BY_JAVA_TYPE.put(JavaTypeEnum.Enum, DropDownChoice);
 
-			case Boolean :
-				return CheckBox;
+		BY_JAVA_TYPE.put(JavaTypeEnum.Boolean, CheckBox);
 
-			case Unknown :
-				return Unknown;
-		}
+		BY_JAVA_TYPE.put(JavaTypeEnum.Unknown, Unknown);
+	}
 
-		return null;
+	/**
+	 * @param typeEnum
+	 * @return this
+	 */
+	public static WicketTypeEnum get(JavaTypeEnum typeEnum)
+	{
+		return BY_JAVA_TYPE.get(typeEnum);
 	}
 
 	/**
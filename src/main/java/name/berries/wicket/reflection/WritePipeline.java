@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Second stage of the generation. Rendered files are queued by the renderers and written by a
+ * pool of writers, so slow I/O does not hold back rendering. The queue is bounded, renderers wait
+ * when the writers can not keep up.
+ * <p>
+ * The executor must run all the writers concurrently, a writer rejected by the executor fails the
+ * construction of the pipeline.
+ *
+ * @author rozkovec
+ */
+final class WritePipeline
+{
+	/** tells writer to finish */
+	private static final Runnable END = new Runnable()
+	{
+		@Override
+		public void run()
+		{
+		}
+	};
+
+	private final BlockingQueue<Runnable> queue;
+
+	/** counted down when a writer finishes */
+	private final CountDownLatch finished;
+
+	private final AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+
+	private final ExecutorService ownExecutor;
+
+	/**
+	 * Construct and start the writers.
+	 *
+	 * @param executor
+	 *            executor of the writers, must not be the one running the renderers; when
+	 *            <code>null</code>, a pool of daemon threads is created for the pipeline
+	 * @param writers
+	 *            number of writers
+	 * @param capacity
+	 *            number of files waiting to be written
+	 * @throws RejectedExecutionException
+	 *             if the executor rejects a writer
+	 */
+	WritePipeline(Executor executor, int writers, int capacity)
+	{
+		queue = new ArrayBlockingQueue<Runnable>(capacity);
+		finished = new CountDownLatch(writers);
+
+		if (executor == null)
+		{
+			ownExecutor = Executors.newFixedThreadPool(writers, runnable -> {
+				Thread thread = new Thread(runnable, "reflection-writer");
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor = ownExecutor;
+		}
+		else
+		{
+			ownExecutor = null;
+		}
+
+		int started = 0;
+		try
+		{
+			for (; started < writers; started++)
+			{
+				executor.execute(this::drain);
+			}
+		}
+		catch (RuntimeException e)
+		{
+			// writers started so far are stopped, nothing was queued yet
+			for (int i = 0; i < started; i++)
+			{
+				queue.add(END);
+			}
+			if (ownExecutor != null)
+			{
+				ownExecutor.shutdown();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Queues the write, waits while the queue is full.
+	 *
+	 * @param write
+	 * @throws RuntimeException
+	 *             first failure of the writers
+	 */
+	void submit(Runnable write)
+	{
+		rethrowFailure();
+		try
+		{
+			queue.put(write);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the writers.", e);
+		}
+	}
+
+	/**
+	 * Waits until all queued files are written and stops the writers.
+	 *
+	 * @throws RuntimeException
+	 *             first failure of the writers
+	 */
+	void close()
+	{
+		try
+		{
+			// each writer takes one END after all the files queued before it
+			for (long i = finished.getCount(); i > 0; i--)
+			{
+				queue.put(END);
+			}
+			finished.await();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the writers.", e);
+		}
+		finally
+		{
+			if (ownExecutor != null)
+			{
+				ownExecutor.shutdown();
+			}
+		}
+		rethrowFailure();
+	}
+
+	private void drain()
+	{
+		try
+		{
+			Runnable write;
+			while ((write = queue.take()) != END)
+			{
+				run(write);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			failure.compareAndSet(null, new IllegalStateException("Writer was interrupted.", e));
+		}
+		finally
+		{
+			finished.countDown();
+		}
+	}
+
+	/**
+	 * After a failure the files are only dropped, so that renderers are not blocked.
+	 */
+	private void run(Runnable write)
+	{
+		if (failure.get() == null)
+		{
+			try
+			{
+				write.run();
+			}
+			catch (RuntimeException e)
+			{
+				failure.compareAndSet(null, e);
+			}
+		}
+	}
+
+	private void rethrowFailure()
+	{
+		RuntimeException e = failure.get();
+		if (e != null)
+		{
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import name.berries.wicket.reflection.ReflectionTemplate;
+
+/**
+ * Marks an entity whose components are generated by the annotation processor during compilation.
+ *
+ * @author rozkovec
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateComponents {
+
+	/**
+	 * @return package of the generated components, each entity has its own sub package. Package
+	 *         of the entity when empty.
+	 */
+	String outputPackage() default "";
+
+	/**
+	 * @return template set
+	 */
+	ReflectionTemplate template() default ReflectionTemplate.BOOTSTRAP_HORIZONTAL;
+
+	/**
+	 * @return factory of the entity, generated when {@link Void}
+	 */
+	Class<?> factory() default Void.class;
+}
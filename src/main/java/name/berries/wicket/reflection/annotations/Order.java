@@ -23,6 +23,10 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 /**
+ * Position of the field in generated components. Fields are sorted by value in ascending order,
+ * fields with equal value keep their declaration order. Fields without this annotation follow
+ * after all ordered fields, in declaration order.
+ *
  * @since 1.0
  */
 @Retention(RetentionPolicy.RUNTIME)
@@ -0,0 +1,430 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.classfile;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Content of one class file with offsets of its constant pool entries. Buffers are reused for the
+ * next class file, so reading many classes needs only as much memory as the largest of them.
+ * Nothing is loaded, no static initializer runs.
+ * <p>
+ * Every read is checked against the length of the current class file and the size of its
+ * constant pool, a truncated or invalid class file throws {@link IndexOutOfBoundsException}
+ * instead of reading what is left in the buffers from a previous class file.
+ *
+ * @author rozkovec
+ */
+final class ClassFile
+{
+	static final int ACC_PUBLIC = 0x0001;
+	static final int ACC_INTERFACE = 0x0200;
+	static final int ACC_ABSTRACT = 0x0400;
+	static final int ACC_ANNOTATION = 0x2000;
+	static final int ACC_ENUM = 0x4000;
+	static final int ACC_MODULE = 0x8000;
+
+	private static final int MAGIC = 0xCAFEBABE;
+
+	private static final int UTF8 = 1;
+	private static final int INTEGER = 3;
+	private static final int FLOAT = 4;
+	private static final int LONG = 5;
+	private static final int DOUBLE = 6;
+	private static final int CLASS = 7;
+	private static final int STRING = 8;
+	private static final int FIELD_REF = 9;
+	private static final int METHOD_REF = 10;
+	private static final int INTERFACE_METHOD_REF = 11;
+	private static final int NAME_AND_TYPE = 12;
+	private static final int METHOD_HANDLE = 15;
+	private static final int METHOD_TYPE = 16;
+	private static final int DYNAMIC = 17;
+	private static final int INVOKE_DYNAMIC = 18;
+	private static final int MODULE = 19;
+	private static final int PACKAGE = 20;
+
+	private byte[] bytes = new byte[8192];
+	private int length;
+
+	/** offsets of the constant pool entries, at their tag */
+	private int[] offsets = new int[512];
+	private int poolCount;
+	private int poolEnd;
+
+	/**
+	 * Reads the class file and its constant pool. The stream is not closed.
+	 *
+	 * @param in
+	 * @return <code>false</code> when the content is not a class file
+	 * @throws IOException
+	 */
+	boolean read(InputStream in) throws IOException
+	{
+		length = 0;
+		int read;
+		while ((read = in.read(bytes, length, bytes.length - length)) != -1)
+		{
+			length += read;
+			if (length == bytes.length)
+			{
+				bytes = Arrays.copyOf(bytes, bytes.length * 2);
+			}
+		}
+		return parsePool();
+	}
+
+	private boolean parsePool()
+	{
+		if (length < 10 || s4(0) != MAGIC)
+		{
+			return false;
+		}
+
+		poolCount = u2(8);
+		if (offsets.length < poolCount)
+		{
+			offsets = new int[Math.max(poolCount, offsets.length * 2)];
+		}
+
+		int position = 10;
+		for (int i = 1; i < poolCount; i++)
+		{
+			if (position >= length)
+			{
+				return false;
+			}
+			offsets[i] = position;
+			int tag = u1(position);
+			switch (tag)
+			{
+				case UTF8 :
+					position += 3 + u2(position + 1);
+					break;
+				case INTEGER :
+				case FLOAT :
+				case FIELD_REF :
+				case METHOD_REF :
+				case INTERFACE_METHOD_REF :
+				case NAME_AND_TYPE :
+				case DYNAMIC :
+				case INVOKE_DYNAMIC :
+					position += 5;
+					break;
+				case LONG :
+				case DOUBLE :
+					position += 9;
+					// takes two entries, the second one is unusable and must not point to a stale offset
+					if (++i < poolCount)
+					{
+						offsets[i] = offsets[i - 1];
+					}
+					break;
+				case CLASS :
+				case STRING :
+				case METHOD_TYPE :
+				case MODULE :
+				case PACKAGE :
+					position += 3;
+					break;
+				case METHOD_HANDLE :
+					position += 4;
+					break;
+				default :
+					return false;
+			}
+			if (position > length)
+			{
+				return false;
+			}
+		}
+		poolEnd = position;
+		return true;
+	}
+
+	/**
+	 * @return offset of the access flags, the first item after the constant pool
+	 */
+	int getPoolEnd()
+	{
+		return poolEnd;
+	}
+
+	int u1(int position)
+	{
+		checkRange(position, 1);
+		return bytes[position] & 0xff;
+	}
+
+	int u2(int position)
+	{
+		checkRange(position, 2);
+		return ((bytes[position] & 0xff) << 8) | (bytes[position + 1] & 0xff);
+	}
+
+	private void checkRange(int position, int size)
+	{
+		if (position < 0 || position > length - size)
+		{
+			throw new IndexOutOfBoundsException("Offset " + position + " out of class file of length " + length);
+		}
+	}
+
+	/**
+	 * @param index
+	 *            constant pool index
+	 * @return offset of the entry, at its tag
+	 */
+	private int offset(int index)
+	{
+		if (index < 1 || index >= poolCount)
+		{
+			throw new IndexOutOfBoundsException("Constant " + index + " out of pool of size " + poolCount);
+		}
+		return offsets[index];
+	}
+
+	int s4(int position)
+	{
+		return (u2(position) << 16) | u2(position + 2);
+	}
+
+	long s8(int position)
+	{
+		return ((long)s4(position) << 32) | (s4(position + 4) & 0xffffffffL);
+	}
+
+	/**
+	 * @param index
+	 *            constant pool index
+	 * @return offset of the entry content, after its tag
+	 */
+	int entry(int index)
+	{
+		return offset(index) + 1;
+	}
+
+	/**
+	 * @param index
+	 * @param value
+	 *            expected value, only ASCII
+	 * @return <code>true</code> if the UTF-8 entry equals the value, without decoding it
+	 */
+	boolean utf8Equals(int index, byte[] value)
+	{
+		int offset = offset(index);
+		if (u1(offset) != UTF8 || u2(offset + 1) != value.length)
+		{
+			return false;
+		}
+		for (int i = 0; i < value.length; i++)
+		{
+			if (bytes[offset + 3 + i] != value[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param value
+	 *            only ASCII
+	 * @return <code>true</code> if the constant pool contains the UTF-8 value
+	 */
+	boolean containsUtf8(byte[] value)
+	{
+		for (int i = 1; i < poolCount; i++)
+		{
+			if (utf8Equals(i, value))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param index
+	 * @return decoded UTF-8 entry
+	 */
+	String utf8(int index)
+	{
+		int offset = offset(index);
+		try
+		{
+			// modified UTF-8 of the class file is the format of DataInput
+			return new DataInputStream(new ByteArrayInputStream(bytes, offset + 1, u2(offset + 1) + 2)).readUTF();
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException("Invalid constant " + index, e);
+		}
+	}
+
+	/**
+	 * @param index
+	 *            index of a class entry
+	 * @return binary name of the class, e.g. <code>java.util.Map$Entry</code>
+	 */
+	String className(int index)
+	{
+		return utf8(u2(entry(index))).replace('/', '.');
+	}
+
+	/**
+	 * @return binary name of this class
+	 */
+	String getClassName()
+	{
+		return className(u2(poolEnd + 2));
+	}
+
+	/**
+	 * @return binary name of the super class, <code>null</code> for {@link Object}
+	 */
+	String getSuperClassName()
+	{
+		int index = u2(poolEnd + 4);
+		return index != 0 ? className(index) : null;
+	}
+
+	/**
+	 * @return access flags of this class
+	 */
+	int getAccessFlags()
+	{
+		return u2(poolEnd);
+	}
+
+	/**
+	 * @param position
+	 *            offset of a member, field or method
+	 * @return offset of the next member
+	 */
+	int skipMember(int position)
+	{
+		return skipAttributes(position + 6);
+	}
+
+	/**
+	 * @param position
+	 *            offset of the attribute count
+	 * @return offset after the attributes
+	 */
+	int skipAttributes(int position)
+	{
+		int count = u2(position);
+		position += 2;
+		for (int i = 0; i < count; i++)
+		{
+			position = skipAttribute(position);
+		}
+		return position;
+	}
+
+	/**
+	 * @param position
+	 *            offset of an attribute
+	 * @return offset of the next attribute
+	 */
+	int skipAttribute(int position)
+	{
+		int attributeLength = s4(position + 2);
+		if (attributeLength < 0)
+		{
+			throw new IndexOutOfBoundsException("Invalid attribute length " + attributeLength);
+		}
+		checkRange(position + 6, attributeLength);
+		return position + 6 + attributeLength;
+	}
+
+	/**
+	 * @return offset of the field count
+	 */
+	int getFields()
+	{
+		int position = poolEnd + 6;
+		return position + 2 + 2 * u2(position);
+	}
+
+	/**
+	 * @return offset of the attribute count of this class
+	 */
+	int getClassAttributes()
+	{
+		int position = getFields();
+		for (int members = 0; members < 2; members++)
+		{
+			int count = u2(position);
+			position += 2;
+			for (int i = 0; i < count; i++)
+			{
+				position = skipMember(position);
+			}
+		}
+		return position;
+	}
+
+	/**
+	 * @param position
+	 *            offset of an element value
+	 * @return offset of the next element value
+	 */
+	int skipElementValue(int position)
+	{
+		int tag = u1(position);
+		switch (tag)
+		{
+			case 'e' :
+				return position + 5;
+			case '@' :
+				return skipAnnotation(position + 1);
+			case '[' :
+				int count = u2(position + 1);
+				position += 3;
+				for (int i = 0; i < count; i++)
+				{
+					position = skipElementValue(position);
+				}
+				return position;
+			default :
+				// constants and classes
+				return position + 3;
+		}
+	}
+
+	/**
+	 * @param position
+	 *            offset of an annotation
+	 * @return offset of the next annotation
+	 */
+	int skipAnnotation(int position)
+	{
+		int pairs = u2(position + 2);
+		position += 4;
+		for (int i = 0; i < pairs; i++)
+		{
+			position = skipElementValue(position + 2);
+		}
+		return position;
+	}
+}
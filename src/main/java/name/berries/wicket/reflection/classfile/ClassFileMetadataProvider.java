@@ -0,0 +1,562 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.classfile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.wicket.util.lang.Args;
+
+import name.berries.wicket.reflection.model.AnnotationInfo;
+import name.berries.wicket.reflection.model.ClassInfo;
+import name.berries.wicket.reflection.model.FieldInfo;
+import name.berries.wicket.reflection.model.MetadataProvider;
+import name.berries.wicket.reflection.model.ReflectionClassReader;
+
+/**
+ * Reads entities from their class files: fields, their generic signatures and runtime annotations
+ * with their values. Classes are never loaded, so the dependencies of the entities, e.g. JPA or
+ * Hibernate, do not have to be on the classpath.
+ * <p>
+ * The result is the same as of {@link ReflectionClassReader}, as far as the class files allow:
+ * <ul>
+ * <li>field types and annotation types are looked up only to tell enums and default values of
+ * annotation members, a missing type is taken for a non enum without defaults</li>
+ * <li>inherited annotations of the class are not included</li>
+ * </ul>
+ *
+ * @author rozkovec
+ */
+public class ClassFileMetadataProvider implements MetadataProvider
+{
+	private static final String CLASS_SUFFIX = ".class";
+	private static final String OBJECT = "java.lang.Object";
+	private static final String ENUM = "java.lang.Enum";
+
+	private static final byte[] SIGNATURE = ascii("Signature");
+	private static final byte[] VISIBLE_ANNOTATIONS = ascii("RuntimeVisibleAnnotations");
+	private static final byte[] INNER_CLASSES = ascii("InnerClasses");
+	private static final byte[] ANNOTATION_DEFAULT = ascii("AnnotationDefault");
+
+	private final ClassLoader resources;
+
+	/** enum flag of field types by binary name */
+	private final ConcurrentMap<String, Boolean> enums = new ConcurrentHashMap<String, Boolean>();
+
+	/** default values of annotation members by annotation type */
+	private final ConcurrentMap<String, Map<String, Object>> defaults = new ConcurrentHashMap<String, Map<String, Object>>();
+
+	/**
+	 * Construct.
+	 *
+	 * @param resources
+	 *            used only to find class files as resources, e.g. a {@link java.net.URLClassLoader}
+	 *            of the domain jars; no class is loaded by it
+	 */
+	public ClassFileMetadataProvider(ClassLoader resources)
+	{
+		this.resources = Args.notNull(resources, "resources");
+	}
+
+	@Override
+	public ClassInfo read(String className)
+	{
+		ClassFile classFile = new ClassFile();
+		if (readClassFile(className, classFile) == false)
+		{
+			throw new IllegalArgumentException("Class not found: " + className);
+		}
+		try
+		{
+			return readClass(classFile);
+		}
+		catch (IndexOutOfBoundsException e)
+		{
+			throw new IllegalArgumentException("Invalid class file of " + className, e);
+		}
+	}
+
+	@Override
+	public boolean exists(String className)
+	{
+		return resources.getResource(getPath(className)) != null;
+	}
+
+	private ClassInfo readClass(ClassFile classFile)
+	{
+		Map<String, String> canonicalNames = readInnerClasses(classFile);
+
+		int position = classFile.getFields();
+		int count = classFile.u2(position);
+		position += 2;
+		List<FieldInfo> fields = new ArrayList<FieldInfo>(count);
+		for (int i = 0; i < count; i++)
+		{
+			int modifiers = classFile.u2(position);
+			String name = classFile.utf8(classFile.u2(position + 2));
+			String descriptor = classFile.utf8(classFile.u2(position + 4));
+			String signature = null;
+			List<AnnotationInfo> annotations = Collections.emptyList();
+
+			int attributes = classFile.u2(position + 6);
+			position += 8;
+			for (int j = 0; j < attributes; j++)
+			{
+				int attributeName = classFile.u2(position);
+				if (classFile.utf8Equals(attributeName, SIGNATURE))
+				{
+					signature = classFile.utf8(classFile.u2(position + 6));
+				}
+				else if (classFile.utf8Equals(attributeName, VISIBLE_ANNOTATIONS))
+				{
+					annotations = readAnnotations(classFile, position + 6, canonicalNames);
+				}
+				position = classFile.skipAttribute(position);
+			}
+
+			fields.add(new FieldInfo(name, modifiers, getBinaryName(descriptor),
+				getCanonicalName(descriptor, canonicalNames), isEnum(descriptor),
+				getTypeName(signature != null ? signature : descriptor), annotations));
+		}
+
+		List<AnnotationInfo> annotations = Collections.emptyList();
+		int attribute = findClassAttribute(classFile, VISIBLE_ANNOTATIONS);
+		if (attribute >= 0)
+		{
+			annotations = readAnnotations(classFile, attribute, canonicalNames);
+		}
+
+		String className = classFile.getClassName();
+		return new ClassInfo(className, getClassCanonicalName(className, canonicalNames), annotations, fields);
+	}
+
+	/**
+	 * @return offset of the content of the class attribute, -1 when there is none
+	 */
+	private static int findClassAttribute(ClassFile classFile, byte[] name)
+	{
+		int position = classFile.getClassAttributes();
+		int count = classFile.u2(position);
+		position += 2;
+		for (int i = 0; i < count; i++)
+		{
+			if (classFile.utf8Equals(classFile.u2(position), name))
+			{
+				return position + 6;
+			}
+			position = classFile.skipAttribute(position);
+		}
+		return -1;
+	}
+
+	/**
+	 * @return canonical names of the nested classes referenced by the class file, by binary name
+	 */
+	private static Map<String, String> readInnerClasses(ClassFile classFile)
+	{
+		int position = findClassAttribute(classFile, INNER_CLASSES);
+		if (position < 0)
+		{
+			return Collections.emptyMap();
+		}
+
+		int count = classFile.u2(position);
+		position += 2;
+		Map<String, String[]> nested = new HashMap<String, String[]>();
+		for (int i = 0; i < count; i++, position += 8)
+		{
+			int outer = classFile.u2(position + 2);
+			int simpleName = classFile.u2(position + 4);
+			String inner = classFile.className(classFile.u2(position));
+			// local and anonymous classes do not have a canonical name
+			nested.put(inner, outer != 0 && simpleName != 0 ? new String[] { classFile.className(outer),
+					classFile.utf8(simpleName) } : null);
+		}
+
+		Map<String, String> canonicalNames = new HashMap<String, String>();
+		for (String inner : nested.keySet())
+		{
+			canonicalNames.put(inner, resolveCanonicalName(inner, nested));
+		}
+		return canonicalNames;
+	}
+
+	private static String resolveCanonicalName(String className, Map<String, String[]> nested)
+	{
+		if (nested.containsKey(className) == false)
+		{
+			return className;
+		}
+		String[] outer = nested.get(className);
+		if (outer == null)
+		{
+			// as Class#getCanonicalName() falls back in ReflectionClassReader
+			return className;
+		}
+		return resolveCanonicalName(outer[0], nested) + "." + outer[1];
+	}
+
+	private static String getClassCanonicalName(String className, Map<String, String> canonicalNames)
+	{
+		String canonicalName = canonicalNames.get(className);
+		if (canonicalName != null)
+		{
+			return canonicalName;
+		}
+		// not described by the class file, nested classes are told by '$'
+		return className.replace('$', '.');
+	}
+
+	/**
+	 * @return name as returned by {@link Class#getName()}
+	 */
+	private static String getBinaryName(String descriptor)
+	{
+		switch (descriptor.charAt(0))
+		{
+			case 'L' :
+				return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+			case '[' :
+				return descriptor.replace('/', '.');
+			default :
+				return getPrimitiveName(descriptor.charAt(0));
+		}
+	}
+
+	private static String getCanonicalName(String descriptor, Map<String, String> canonicalNames)
+	{
+		switch (descriptor.charAt(0))
+		{
+			case 'L' :
+				return getClassCanonicalName(getBinaryName(descriptor), canonicalNames);
+			case '[' :
+				return getCanonicalName(descriptor.substring(1), canonicalNames) + "[]";
+			default :
+				return getPrimitiveName(descriptor.charAt(0));
+		}
+	}
+
+	private static String getPrimitiveName(char descriptor)
+	{
+		switch (descriptor)
+		{
+			case 'Z' :
+				return "boolean";
+			case 'B' :
+				return "byte";
+			case 'C' :
+				return "char";
+			case 'S' :
+				return "short";
+			case 'I' :
+				return "int";
+			case 'J' :
+				return "long";
+			case 'F' :
+				return "float";
+			case 'D' :
+				return "double";
+			case 'V' :
+				return "void";
+			default :
+				throw new IllegalArgumentException("Invalid descriptor " + descriptor);
+		}
+	}
+
+	/**
+	 * @param signature
+	 *            generic signature or descriptor of the field
+	 * @return name as returned by {@link java.lang.reflect.Type#getTypeName()} of the generic type
+	 */
+	private static String getTypeName(String signature)
+	{
+		int[] position = { 0 };
+		return readTypeName(signature, position);
+	}
+
+	private static String readTypeName(String signature, int[] position)
+	{
+		char c = signature.charAt(position[0]);
+		switch (c)
+		{
+			case 'L' :
+				return readClassTypeName(signature, position);
+			case 'T' :
+			{
+				int end = signature.indexOf(';', position[0]);
+				String name = signature.substring(position[0] + 1, end);
+				position[0] = end + 1;
+				return name;
+			}
+			case '[' :
+				position[0]++;
+				return readTypeName(signature, position) + "[]";
+			default :
+				position[0]++;
+				return getPrimitiveName(c);
+		}
+	}
+
+	private static String readClassTypeName(String signature, int[] position)
+	{
+		StringBuilder name = new StringBuilder();
+		int i = position[0] + 1;
+		while (true)
+		{
+			int start = i;
+			while ("<.;".indexOf(signature.charAt(i)) < 0)
+			{
+				i++;
+			}
+			// nested class of a parameterized owner is separated by '.', reflection uses '$'
+			name.append(signature, start, i);
+
+			char c = signature.charAt(i);
+			if (c == '<')
+			{
+				position[0] = i + 1;
+				name.append(readTypeArguments(signature, position));
+				i = position[0];
+				c = signature.charAt(i);
+			}
+			if (c == '.')
+			{
+				name.append('$');
+				i++;
+				continue;
+			}
+			// ';'
+			position[0] = i + 1;
+			return name.toString().replace('/', '.');
+		}
+	}
+
+	private static String readTypeArguments(String signature, int[] position)
+	{
+		StringJoiner arguments = new StringJoiner(", ", "<", ">");
+		while (signature.charAt(position[0]) != '>')
+		{
+			char c = signature.charAt(position[0]);
+			if (c == '*')
+			{
+				position[0]++;
+				arguments.add("?");
+			}
+			else if (c == '+')
+			{
+				position[0]++;
+				String bound = readTypeName(signature, position);
+				arguments.add(OBJECT.equals(bound) ? "?" : "? extends " + bound);
+			}
+			else if (c == '-')
+			{
+				position[0]++;
+				arguments.add("? super " + readTypeName(signature, position));
+			}
+			else
+			{
+				arguments.add(readTypeName(signature, position));
+			}
+		}
+		position[0]++;
+		return arguments.toString();
+	}
+
+	private boolean isEnum(String descriptor)
+	{
+		if (descriptor.charAt(0) != 'L')
+		{
+			return false;
+		}
+		String className = getBinaryName(descriptor);
+		Boolean result = enums.get(className);
+		if (result == null)
+		{
+			ClassFile classFile = new ClassFile();
+			result = readClassFile(className, classFile) && (classFile.getAccessFlags() & ClassFile.ACC_ENUM) != 0
+				&& ENUM.equals(classFile.getSuperClassName());
+			enums.put(className, result);
+		}
+		return result;
+	}
+
+	private List<AnnotationInfo> readAnnotations(ClassFile classFile, int position, Map<String, String> canonicalNames)
+	{
+		int count = classFile.u2(position);
+		position += 2;
+		List<AnnotationInfo> annotations = new ArrayList<AnnotationInfo>(count);
+		for (int i = 0; i < count; i++)
+		{
+			annotations.add(readAnnotation(classFile, position, canonicalNames));
+			position = classFile.skipAnnotation(position);
+		}
+		return annotations;
+	}
+
+	/**
+	 * Reads explicit values of the annotation, values equal to the defaults are left out as
+	 * {@link ReflectionClassReader} does.
+	 */
+	private AnnotationInfo readAnnotation(ClassFile classFile, int position, Map<String, String> canonicalNames)
+	{
+		String type = getBinaryName(classFile.utf8(classFile.u2(position)));
+		Map<String, Object> memberDefaults = getDefaults(type);
+
+		int pairs = classFile.u2(position + 2);
+		position += 4;
+		Map<String, Object> values = new HashMap<String, Object>();
+		for (int i = 0; i < pairs; i++)
+		{
+			String member = classFile.utf8(classFile.u2(position));
+			Object value = readElementValue(classFile, position + 2, canonicalNames);
+			if (Objects.equals(value, memberDefaults.get(member)) == false)
+			{
+				values.put(member, value);
+			}
+			position = classFile.skipElementValue(position + 2);
+		}
+		return new AnnotationInfo(type, values);
+	}
+
+	private Object readElementValue(ClassFile classFile, int position, Map<String, String> canonicalNames)
+	{
+		int tag = classFile.u1(position);
+		int index = classFile.u2(position + 1);
+		switch (tag)
+		{
+			case 'B' :
+				return (byte)classFile.s4(classFile.entry(index));
+			case 'C' :
+				return (char)classFile.s4(classFile.entry(index));
+			case 'S' :
+				return (short)classFile.s4(classFile.entry(index));
+			case 'I' :
+				return classFile.s4(classFile.entry(index));
+			case 'Z' :
+				return classFile.s4(classFile.entry(index)) != 0;
+			case 'J' :
+				return classFile.s8(classFile.entry(index));
+			case 'F' :
+				return Float.intBitsToFloat(classFile.s4(classFile.entry(index)));
+			case 'D' :
+				return Double.longBitsToDouble(classFile.s8(classFile.entry(index)));
+			case 's' :
+				return classFile.utf8(index);
+			case 'e' :
+				// constant name follows the type
+				return classFile.utf8(classFile.u2(position + 3));
+			case 'c' :
+				return getCanonicalName(classFile.utf8(index), canonicalNames);
+			case '@' :
+				return readAnnotation(classFile, position + 1, canonicalNames);
+			case '[' :
+				List<Object> list = new ArrayList<Object>(index);
+				position += 3;
+				for (int i = 0; i < index; i++)
+				{
+					list.add(readElementValue(classFile, position, canonicalNames));
+					position = classFile.skipElementValue(position);
+				}
+				return list;
+			default :
+				throw new IllegalArgumentException("Invalid element value " + (char)tag);
+		}
+	}
+
+	/**
+	 * @return default values of the members of the annotation type, empty when its class file is
+	 *         not available
+	 */
+	private Map<String, Object> getDefaults(String annotationType)
+	{
+		Map<String, Object> result = defaults.get(annotationType);
+		if (result != null)
+		{
+			return result;
+		}
+
+		result = new HashMap<String, Object>();
+		ClassFile classFile = new ClassFile();
+		if (readClassFile(annotationType, classFile))
+		{
+			Map<String, String> canonicalNames = readInnerClasses(classFile);
+
+			// skip fields, read methods
+			int position = classFile.getFields();
+			int fields = classFile.u2(position);
+			position += 2;
+			for (int i = 0; i < fields; i++)
+			{
+				position = classFile.skipMember(position);
+			}
+
+			int methods = classFile.u2(position);
+			position += 2;
+			for (int i = 0; i < methods; i++)
+			{
+				String member = classFile.utf8(classFile.u2(position + 2));
+				int attributes = classFile.u2(position + 6);
+				position += 8;
+				for (int j = 0; j < attributes; j++)
+				{
+					if (classFile.utf8Equals(classFile.u2(position), ANNOTATION_DEFAULT))
+					{
+						result.put(member, readElementValue(classFile, position + 6, canonicalNames));
+					}
+					position = classFile.skipAttribute(position);
+				}
+			}
+		}
+		defaults.putIfAbsent(annotationType, result);
+		return result;
+	}
+
+	/**
+	 * @return <code>false</code> when the class file is not found or invalid
+	 */
+	private boolean readClassFile(String className, ClassFile classFile)
+	{
+		try (InputStream in = resources.getResourceAsStream(getPath(className)))
+		{
+			return in != null && classFile.read(in);
+		}
+		catch (IOException e)
+		{
+			return false;
+		}
+	}
+
+	private static String getPath(String className)
+	{
+		return className.replace('.', '/') + CLASS_SUFFIX;
+	}
+
+	private static byte[] ascii(String value)
+	{
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+}
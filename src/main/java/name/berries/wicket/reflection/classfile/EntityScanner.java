@@ -0,0 +1,332 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.classfile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.wicket.util.lang.Args;
+
+import name.berries.wicket.reflection.annotations.GenerateComponents;
+
+/**
+ * Finds entities by reading their class files, classes are neither loaded nor initialized. An
+ * entity is a public concrete top level class annotated with one of the given annotations, by
+ * default {@value #ENTITY} or {@link GenerateComponents}. Annotations of class retention are found
+ * as well.
+ * <p>
+ * Class files whose constant pool does not mention any of the annotations are rejected without
+ * reading further, the buffers are reused for all class files of a scan.
+ *
+ * <pre>
+ * List&lt;String&gt; classNames = new EntityScanner().scan(Paths.get("target/classes"));
+ * </pre>
+ *
+ * @author rozkovec
+ */
+public final class EntityScanner
+{
+	/** JPA entity annotation */
+	public static final String ENTITY = "javax.persistence.Entity";
+
+	private static final String CLASS_SUFFIX = ".class";
+
+	private static final byte[] VISIBLE_ANNOTATIONS = ascii("RuntimeVisibleAnnotations");
+	private static final byte[] INVISIBLE_ANNOTATIONS = ascii("RuntimeInvisibleAnnotations");
+
+	/** descriptors of the annotations, e.g. <code>Ljavax/persistence/Entity;</code> */
+	private final byte[][] descriptors;
+
+	/**
+	 * Construct, finds classes annotated with {@value #ENTITY} or {@link GenerateComponents}.
+	 */
+	public EntityScanner()
+	{
+		this(ENTITY, GenerateComponents.class.getName());
+	}
+
+	/**
+	 * Construct.
+	 *
+	 * @param annotationNames
+	 *            binary names of the annotations marking entities, none for all public concrete
+	 *            top level classes
+	 */
+	public EntityScanner(String... annotationNames)
+	{
+		Args.notNull(annotationNames, "annotationNames");
+		descriptors = new byte[annotationNames.length][];
+		for (int i = 0; i < annotationNames.length; i++)
+		{
+			descriptors[i] = ascii("L" + annotationNames[i].replace('.', '/') + ";");
+		}
+	}
+
+	/**
+	 * Scans a classpath root, all its packages included.
+	 *
+	 * @param root
+	 *            directory or jar
+	 * @return names of the entities, sorted
+	 * @throws IOException
+	 */
+	public List<String> scan(Path root) throws IOException
+	{
+		final Set<String> classNames = new TreeSet<String>();
+		final ClassFile classFile = new ClassFile();
+		if (Files.isDirectory(root))
+		{
+			Files.walkFileTree(root, new SimpleFileVisitor<Path>()
+			{
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
+				{
+					scanFile(file, classFile, classNames);
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		else
+		{
+			try (JarFile jar = new JarFile(root.toFile()))
+			{
+				scanJar(jar, "", true, classFile, classNames);
+			}
+		}
+		return new ArrayList<String>(classNames);
+	}
+
+	/**
+	 * Scans one package in all classpath roots of the class loader, sub packages are not scanned.
+	 *
+	 * @param classLoader
+	 *            used only to find the roots
+	 * @param packageName
+	 * @return names of the entities, sorted
+	 * @throws IOException
+	 */
+	public List<String> scanPackage(ClassLoader classLoader, String packageName) throws IOException
+	{
+		Set<String> classNames = new TreeSet<String>();
+		ClassFile classFile = new ClassFile();
+		String packagePath = packageName.replace('.', '/');
+
+		Enumeration<URL> roots = classLoader.getResources(packagePath);
+		while (roots.hasMoreElements())
+		{
+			URL root = roots.nextElement();
+			if ("file".equals(root.getProtocol()))
+			{
+				try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(root.toURI()), "*" + CLASS_SUFFIX))
+				{
+					for (Path file : files)
+					{
+						scanFile(file, classFile, classNames);
+					}
+				}
+				catch (URISyntaxException e)
+				{
+					throw new IOException("Invalid package location " + root, e);
+				}
+			}
+			else if ("jar".equals(root.getProtocol()))
+			{
+				URLConnection connection = root.openConnection();
+				if (connection instanceof JarURLConnection)
+				{
+					JarURLConnection jarConnection = (JarURLConnection)connection;
+					jarConnection.setUseCaches(false);
+					try (JarFile jar = jarConnection.getJarFile())
+					{
+						scanJar(jar, packagePath + "/", false, classFile, classNames);
+					}
+				}
+			}
+		}
+		return new ArrayList<String>(classNames);
+	}
+
+	/**
+	 * @param classFile
+	 * @return <code>true</code> if the class file is an annotated entity
+	 * @throws IOException
+	 */
+	public boolean isEntity(Path classFile) throws IOException
+	{
+		Set<String> classNames = new TreeSet<String>();
+		try (InputStream in = Files.newInputStream(classFile))
+		{
+			addEntity(in, new ClassFile(), classNames);
+		}
+		return classNames.isEmpty() == false;
+	}
+
+	private void scanFile(Path file, ClassFile classFile, Set<String> classNames) throws IOException
+	{
+		if (isCandidate(file.getFileName().toString()))
+		{
+			try (InputStream in = Files.newInputStream(file))
+			{
+				addEntity(in, classFile, classNames);
+			}
+		}
+	}
+
+	private void scanJar(JarFile jar, String prefix, boolean recursive, ClassFile classFile, Set<String> classNames)
+		throws IOException
+	{
+		Enumeration<JarEntry> entries = jar.entries();
+		while (entries.hasMoreElements())
+		{
+			JarEntry entry = entries.nextElement();
+			String name = entry.getName();
+			if (name.startsWith(prefix) == false || (recursive == false && name.indexOf('/', prefix.length()) >= 0)
+				|| isCandidate(name.substring(name.lastIndexOf('/') + 1)) == false
+				|| name.startsWith("META-INF/"))
+			{
+				continue;
+			}
+			try (InputStream in = jar.getInputStream(entry))
+			{
+				addEntity(in, classFile, classNames);
+			}
+		}
+	}
+
+	/**
+	 * Nested and anonymous classes are not entities, nor are package and module descriptors.
+	 */
+	private static boolean isCandidate(String fileName)
+	{
+		return fileName.endsWith(CLASS_SUFFIX) && fileName.indexOf('$') < 0 && fileName.indexOf('-') < 0;
+	}
+
+	private void addEntity(InputStream in, ClassFile classFile, Set<String> classNames) throws IOException
+	{
+		try
+		{
+			if (classFile.read(in) && isEntity(classFile))
+			{
+				classNames.add(classFile.getClassName());
+			}
+		}
+		catch (IndexOutOfBoundsException e)
+		{
+			// truncated class file is not an entity
+		}
+	}
+
+	private boolean isEntity(ClassFile classFile)
+	{
+		if (mentionsAnnotation(classFile) == false)
+		{
+			return false;
+		}
+
+		int flags = classFile.getAccessFlags();
+		if ((flags & ClassFile.ACC_PUBLIC) == 0 || (flags & (ClassFile.ACC_INTERFACE | ClassFile.ACC_ABSTRACT
+			| ClassFile.ACC_ANNOTATION | ClassFile.ACC_ENUM | ClassFile.ACC_MODULE)) != 0)
+		{
+			return false;
+		}
+
+		if (descriptors.length == 0)
+		{
+			return true;
+		}
+
+		int position = classFile.getClassAttributes();
+		int count = classFile.u2(position);
+		position += 2;
+		for (int i = 0; i < count; i++)
+		{
+			int name = classFile.u2(position);
+			if (classFile.utf8Equals(name, VISIBLE_ANNOTATIONS) || classFile.utf8Equals(name, INVISIBLE_ANNOTATIONS))
+			{
+				if (hasAnnotation(classFile, position + 6))
+				{
+					return true;
+				}
+			}
+			position = classFile.skipAttribute(position);
+		}
+		return false;
+	}
+
+	private boolean mentionsAnnotation(ClassFile classFile)
+	{
+		if (descriptors.length == 0)
+		{
+			return true;
+		}
+		for (byte[] descriptor : descriptors)
+		{
+			if (classFile.containsUtf8(descriptor))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param position
+	 *            offset of the annotation count of an annotations attribute
+	 */
+	private boolean hasAnnotation(ClassFile classFile, int position)
+	{
+		int count = classFile.u2(position);
+		position += 2;
+		for (int i = 0; i < count; i++)
+		{
+			int type = classFile.u2(position);
+			for (byte[] descriptor : descriptors)
+			{
+				if (classFile.utf8Equals(type, descriptor))
+				{
+					return true;
+				}
+			}
+			position = classFile.skipAnnotation(position);
+		}
+		return false;
+	}
+
+	private static byte[] ascii(String value)
+	{
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+}
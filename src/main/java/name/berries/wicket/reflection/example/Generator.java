@@ -16,37 +16,376 @@
  */
 package name.berries.wicket.reflection.example;
 
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import name.berries.wicket.reflection.ClassFinder;
+import name.berries.wicket.reflection.GenerationReport;
+import name.berries.wicket.reflection.GenerationWatcher;
 import name.berries.wicket.reflection.ReflectionTemplate;
 import name.berries.wicket.reflection.ReflectionUtil;
-import name.berries.wicket.reflection.example.pojo.AnotherExamplePojo;
-import name.berries.wicket.reflection.example.pojo.ExamplePojo;
-import name.berries.wicket.reflection.example.pojo.gen.Hook;
+import name.berries.wicket.reflection.classfile.ClassFileMetadataProvider;
+import name.berries.wicket.reflection.classfile.EntityScanner;
 
 /**
+ * Command line generator, so that the components are generated at build time instead of on
+ * application start.
+ *
+ * <pre>
+ * java name.berries.wicket.reflection.example.Generator \
+ *     -o src/main/java/name/berries/wicket/reflection/example/pojo/gen \
+ *     -r name.berries.wicket.reflection.example.pojo.gen.Hook \
+ *     -n WicketApplication \
+ *     name.berries.wicket.reflection.example.pojo
+ * </pre>
+ *
+ * With <code>-w</code> the entities are loaded from the given directories, which must not be on
+ * the classpath, and regenerated whenever their classes are compiled again. With <code>-c</code>
+ * the entities are read from their class files and never loaded, so their dependencies, e.g. JPA,
+ * do not have to be on the classpath.
+ *
  * @author rozkovec
  */
 public class Generator
 {
+	private static final String USAGE = "Usage: Generator [options] <class or package>...\n"
+		+ "  -o, --output <directory>    directory of the reference class, required\n"
+		+ "  -r, --reference <class>     class in the package the components are generated into, required\n"
+		+ "  -t, --template <template>   BOOTSTRAP_HORIZONTAL (default), BOOTSTRAP_HORIZONTAL_AJAX or BOOTSTRAP_VERTICAL\n"
+		+ "  -f, --factory <class>       factory of the entities\n"
+		+ "  -p, --parallelism <n>       number of entities generated concurrently\n"
+		+ "  -n, --name <application>    writes merged properties named after the application class\n"
+		+ "  -i, --incremental           generates only entities changed since the last run\n"
+		+ "      --remove-stale          deletes components of entities whose class was removed\n"
+		+ "  -a, --annotated             generates only classes of the packages annotated with @Entity or @GenerateComponents\n"
+		+ "  -s, --scan <directory|jar>  generates all annotated classes of the classpath root\n"
+		+ "      --report                prints where the time was spent\n"
+		+ "  -c, --classes <directory|jar> reads the entities from the class files without loading them\n"
+		+ "  -w, --watch <directory>     directory of compiled entities, regenerates changed entities until stopped\n"
+		+ "      --templates <directory> template directory on the classpath, watched for changes";
+
+	private String outputDirectory;
+	private String referenceClass;
+	private ReflectionTemplate template = ReflectionTemplate.BOOTSTRAP_HORIZONTAL;
+	private String factoryClass;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	private String applicationName;
+	private boolean incremental;
+	private boolean removeStale;
+	private boolean report;
+	private boolean annotated;
+	private final List<Path> scanRoots = new ArrayList<Path>();
+	private final List<Path> classRoots = new ArrayList<Path>();
+	private final List<Path> classesDirectories = new ArrayList<Path>();
+	private final List<Path> templateDirectories = new ArrayList<Path>();
+	private final List<String> names = new ArrayList<String>();
 
 	/**
 	 * Construct.
+	 *
+	 * @param args
+	 *            command line arguments
+	 * @throws IllegalArgumentException
+	 *             when the arguments are invalid
+	 */
+	public Generator(String... args)
+	{
+		for (int i = 0; i < args.length; i++)
+		{
+			String arg = args[i];
+			switch (arg)
+			{
+				case "-o" :
+				case "--output" :
+					outputDirectory = value(args, ++i, arg);
+					break;
+				case "-r" :
+				case "--reference" :
+					referenceClass = value(args, ++i, arg);
+					break;
+				case "-t" :
+				case "--template" :
+					template = parseTemplate(value(args, ++i, arg));
+					break;
+				case "-f" :
+				case "--factory" :
+					factoryClass = value(args, ++i, arg);
+					break;
+				case "-p" :
+				case "--parallelism" :
+					parallelism = parseParallelism(value(args, ++i, arg));
+					break;
+				case "-n" :
+				case "--name" :
+					applicationName = value(args, ++i, arg);
+					break;
+				case "-i" :
+				case "--incremental" :
+					incremental = true;
+					break;
+				case "--remove-stale" :
+					removeStale = true;
+					break;
+				case "-a" :
+				case "--annotated" :
+					annotated = true;
+					break;
+				case "-s" :
+				case "--scan" :
+					scanRoots.add(Paths.get(value(args, ++i, arg)));
+					break;
+				case "--report" :
+					report = true;
+					break;
+				case "-c" :
+				case "--classes" :
+					classRoots.add(Paths.get(value(args, ++i, arg)));
+					break;
+				case "-w" :
+				case "--watch" :
+					classesDirectories.add(Paths.get(value(args, ++i, arg)));
+					break;
+				case "--templates" :
+					templateDirectories.add(Paths.get(value(args, ++i, arg)));
+					break;
+				default :
+					if (arg.startsWith("-"))
+					{
+						throw new IllegalArgumentException("Unknown option " + arg);
+					}
+					names.add(arg);
+			}
+		}
+
+		if (outputDirectory == null || referenceClass == null)
+		{
+			throw new IllegalArgumentException("Output directory and reference class are required.");
+		}
+		if (names.isEmpty() && scanRoots.isEmpty())
+		{
+			throw new IllegalArgumentException("No classes or packages to generate.");
+		}
+		if (classesDirectories.isEmpty() && templateDirectories.isEmpty() == false)
+		{
+			throw new IllegalArgumentException("Templates are watched only together with classes.");
+		}
+		if (classRoots.isEmpty() == false && classesDirectories.isEmpty() == false)
+		{
+			throw new IllegalArgumentException("Class files are either read or watched.");
+		}
+	}
+
+	/**
+	 * Generates components of all given classes.
+	 */
+	public void run()
+	{
+		ReflectionUtil ref = new ReflectionUtil(outputDirectory, loadClass(referenceClass), template);
+		ref.setParallelism(parallelism);
+		ref.setIncremental(incremental || classesDirectories.isEmpty() == false);
+		ref.setRemoveStale(removeStale);
+
+		GenerationReport generationReport = null;
+		if (report)
+		{
+			generationReport = new GenerationReport();
+			ref.addListener(generationReport);
+		}
+
+		EntityScanner scanner = annotated || scanRoots.isEmpty() == false ? new EntityScanner() : null;
+		for (Path root : scanRoots)
+		{
+			try
+			{
+				names.addAll(scanner.scan(root));
+			}
+			catch (IOException e)
+			{
+				throw new RuntimeException("Unable to scan " + root, e);
+			}
+		}
+
+		if (classRoots.isEmpty() == false)
+		{
+			generateFromClassFiles(ref);
+
+			if (applicationName != null)
+			{
+				ref.createMergedProperties(applicationName);
+			}
+			printReport(generationReport);
+		}
+		else if (classesDirectories.isEmpty())
+		{
+			ClassFinder finder = new ClassFinder(getClassLoader(), annotated ? scanner : null);
+			List<Class<?>> classes = finder.find(names);
+
+			ref.generateAll(classes, factoryClass != null ? loadClass(factoryClass) : null);
+
+			if (applicationName != null)
+			{
+				ref.createMergedProperties(applicationName);
+			}
+			printReport(generationReport);
+		}
+		else
+		{
+			watch(ref, generationReport, scanner);
+		}
+	}
+
+	/**
+	 * Generates the entities read from their class files, the class loader only finds the files.
+	 */
+	private void generateFromClassFiles(ReflectionUtil ref)
+	{
+		List<URL> urls = new ArrayList<URL>(classRoots.size());
+		for (Path root : classRoots)
+		{
+			try
+			{
+				urls.add(root.toUri().toURL());
+			}
+			catch (MalformedURLException e)
+			{
+				throw new IllegalArgumentException("Invalid class root " + root, e);
+			}
+		}
+
+		try (URLClassLoader resources = new URLClassLoader(urls.toArray(new URL[urls.size()]),
+			Generator.class.getClassLoader()))
+		{
+			ClassFileMetadataProvider provider = new ClassFileMetadataProvider(resources);
+			EntityScanner scanner = annotated ? new EntityScanner() : new EntityScanner(new String[0]);
+			List<String> classNames = new ArrayList<String>();
+			for (String name : names)
+			{
+				if (provider.exists(name))
+				{
+					classNames.add(name);
+					continue;
+				}
+
+				List<String> found = scanner.scanPackage(resources, name);
+				if (found.isEmpty())
+				{
+					throw new IllegalArgumentException("Neither a class nor a package with classes: " + name);
+				}
+				classNames.addAll(found);
+			}
+
+			String factoryName = factoryClass != null ? provider.read(factoryClass).getCanonicalName() : null;
+			ref.generateAll(provider, classNames, factoryName);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("Unable to read classes of " + classRoots, e);
+		}
+	}
+
+	/**
+	 * Generates all entities, then regenerates the changed ones until interrupted.
 	 */
-	public Generator()
+	private void watch(ReflectionUtil ref, GenerationReport generationReport, EntityScanner scanner)
+	{
+		try (GenerationWatcher watcher = new GenerationWatcher(ref, classesDirectories, names))
+		{
+			watcher.setFactoryClassName(factoryClass);
+			watcher.setApplicationName(applicationName);
+			watcher.setScanner(annotated ? scanner : null);
+			for (Path directory : templateDirectories)
+			{
+				watcher.addTemplateDirectory(directory);
+			}
+
+			watcher.generateAll();
+			printReport(generationReport);
+			if (generationReport != null)
+			{
+				ref.removeListener(generationReport);
+			}
+
+			watcher.run();
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void printReport(GenerationReport generationReport)
 	{
-		// set package where classes will be generated, for each passed entity, separate
-		// subdirectory will be created
-		String filesystemPathOfTheHookClass = "/speedy/dev/name.berries/code-generator/src/main/java/name/berries/wicket/reflection/example/pojo/gen";
+		if (generationReport != null)
+		{
+			System.out.println(generationReport);
+		}
+	}
+
+	private static String value(String[] args, int index, String option)
+	{
+		if (index >= args.length)
+		{
+			throw new IllegalArgumentException("Missing value of " + option);
+		}
+		return args[index];
+	}
 
+	private static ReflectionTemplate parseTemplate(String value)
+	{
+		try
+		{
+			return ReflectionTemplate.valueOf(value.toUpperCase(Locale.ROOT));
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new IllegalArgumentException("Unknown template " + value);
+		}
+	}
 
-		// select template
-		ReflectionUtil ref = new ReflectionUtil(filesystemPathOfTheHookClass, Hook.class,
-			ReflectionTemplate.BOOTSTRAP_HORIZONTAL);
+	private static int parseParallelism(String value)
+	{
+		try
+		{
+			int parallelism = Integer.parseInt(value);
+			if (parallelism > 0)
+			{
+				return parallelism;
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			// reported below
+		}
+		throw new IllegalArgumentException("Parallelism must be a positive number: " + value);
+	}
 
-		// add your classes
-		ref.createComponents(ExamplePojo.class);
-		ref.createComponents(AnotherExamplePojo.class);
+	private static ClassLoader getClassLoader()
+	{
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		return loader != null ? loader : Generator.class.getClassLoader();
+	}
 
-		ref.createMergedProperties();
+	private static Class<?> loadClass(String className)
+	{
+		try
+		{
+			return Class.forName(className, false, getClassLoader());
+		}
+		catch (ClassNotFoundException e)
+		{
+			throw new IllegalArgumentException("Class not found: " + className);
+		}
 	}
 
 	/**
@@ -54,6 +393,18 @@ public class Generator
 	 */
 	public static void main(String[] args)
 	{
-
+		Generator generator;
+		try
+		{
+			generator = new Generator(args);
+		}
+		catch (IllegalArgumentException e)
+		{
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(1);
+			return;
+		}
+		generator.run();
 	}
 }
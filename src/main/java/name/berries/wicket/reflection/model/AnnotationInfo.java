@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.model;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Annotation read from a class, independent of how the class was read. Only members with an
+ * explicit value are present, default values are applied by the callers. Values are
+ * {@link String}s, boxed primitives, enum constant names, canonical names of classes or lists
+ * of those for array members.
+ *
+ * @author rozkovec
+ */
+public final class AnnotationInfo
+{
+	private final String type;
+	private final Map<String, Object> values;
+
+	/**
+	 * Construct.
+	 *
+	 * @param type
+	 *            fully qualified name of the annotation type
+	 * @param values
+	 *            explicit values by member name
+	 */
+	public AnnotationInfo(String type, Map<String, Object> values)
+	{
+		this.type = type;
+		this.values = Collections.unmodifiableMap(new TreeMap<String, Object>(values));
+	}
+
+	/**
+	 * @return fully qualified name of the annotation type
+	 */
+	public String getType()
+	{
+		return type;
+	}
+
+	/**
+	 * @return explicit values sorted by member name
+	 */
+	public Map<String, Object> getValues()
+	{
+		return values;
+	}
+
+	/**
+	 * @param member
+	 * @param defaultValue
+	 * @return value of the member
+	 */
+	public String getString(String member, String defaultValue)
+	{
+		Object value = values.get(member);
+		return value != null ? value.toString() : defaultValue;
+	}
+
+	/**
+	 * @param member
+	 * @param defaultValue
+	 * @return value of the member
+	 */
+	public int getInt(String member, int defaultValue)
+	{
+		Object value = values.get(member);
+		return value instanceof Number ? ((Number)value).intValue() : defaultValue;
+	}
+
+	/**
+	 * @param member
+	 * @param defaultValue
+	 * @return value of the member
+	 */
+	public boolean getBoolean(String member, boolean defaultValue)
+	{
+		Object value = values.get(member);
+		return value instanceof Boolean ? (Boolean)value : defaultValue;
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+		{
+			return true;
+		}
+		if (obj instanceof AnnotationInfo == false)
+		{
+			return false;
+		}
+		AnnotationInfo other = (AnnotationInfo)obj;
+		return type.equals(other.type) && values.equals(other.values);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return 31 * type.hashCode() + values.hashCode();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "@" + type + values;
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Entity class with its declared fields, independent of how the class was read: by reflection,
+ * from the compiler's element model or from the class file.
+ *
+ * @author rozkovec
+ * @see ReflectionClassReader
+ */
+public final class ClassInfo
+{
+	private final String name;
+	private final String canonicalName;
+	private final List<AnnotationInfo> annotations;
+	private final List<FieldInfo> fields;
+
+	/**
+	 * Construct.
+	 *
+	 * @param name
+	 *            binary name of the class, as returned by {@link Class#getName()}
+	 * @param canonicalName
+	 *            canonical name of the class, used in imports
+	 * @param annotations
+	 * @param fields
+	 *            declared fields in the order of declaration
+	 */
+	public ClassInfo(String name, String canonicalName, List<AnnotationInfo> annotations, List<FieldInfo> fields)
+	{
+		this.name = name;
+		this.canonicalName = canonicalName;
+		this.annotations = Collections.unmodifiableList(annotations);
+		this.fields = Collections.unmodifiableList(fields);
+	}
+
+	/**
+	 * @return binary name of the class
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * @return canonical name of the class
+	 */
+	public String getCanonicalName()
+	{
+		return canonicalName;
+	}
+
+	/**
+	 * @return simple name of the class
+	 */
+	public String getSimpleName()
+	{
+		return getSimpleName(canonicalName);
+	}
+
+	/**
+	 * @return annotations of the class
+	 */
+	public List<AnnotationInfo> getAnnotations()
+	{
+		return annotations;
+	}
+
+	/**
+	 * @param type
+	 *            fully qualified name of the annotation type
+	 * @return annotation or <code>null</code> if the class is not annotated with it
+	 */
+	public AnnotationInfo getAnnotation(String type)
+	{
+		return find(annotations, type);
+	}
+
+	/**
+	 * @return declared fields in the order of declaration
+	 */
+	public List<FieldInfo> getFields()
+	{
+		return fields;
+	}
+
+	/**
+	 * @param fieldName
+	 * @return declared field
+	 * @throws IllegalArgumentException
+	 *             when the class does not declare the field
+	 */
+	public FieldInfo getField(String fieldName)
+	{
+		for (FieldInfo field : fields)
+		{
+			if (field.getName().equals(fieldName))
+			{
+				return field;
+			}
+		}
+		throw new IllegalArgumentException("No field " + fieldName + " in " + name);
+	}
+
+	@Override
+	public String toString()
+	{
+		return name;
+	}
+
+	/**
+	 * @param canonicalName
+	 * @return simple name of the class with the given canonical name
+	 */
+	public static String getSimpleName(String canonicalName)
+	{
+		return canonicalName.substring(canonicalName.lastIndexOf('.') + 1);
+	}
+
+	static AnnotationInfo find(List<AnnotationInfo> annotations, String type)
+	{
+		for (AnnotationInfo annotation : annotations)
+		{
+			if (annotation.getType().equals(type))
+			{
+				return annotation;
+			}
+		}
+		return null;
+	}
+}
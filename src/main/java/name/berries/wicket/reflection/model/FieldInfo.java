@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.model;
+
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Field of an entity, independent of how the class was read.
+ *
+ * @author rozkovec
+ */
+public final class FieldInfo
+{
+	private final String name;
+	private final int modifiers;
+	private final String typeName;
+	private final String typeCanonicalName;
+	private final boolean enumType;
+	private final String genericTypeName;
+	private final List<AnnotationInfo> annotations;
+
+	/**
+	 * Construct.
+	 *
+	 * @param name
+	 * @param modifiers
+	 *            modifiers as defined by {@link Modifier}
+	 * @param typeName
+	 *            binary name of the declared type, as returned by {@link Class#getName()}
+	 * @param typeCanonicalName
+	 *            canonical name of the declared type, used in imports
+	 * @param enumType
+	 *            <code>true</code> if the declared type is an enum
+	 * @param genericTypeName
+	 *            declared type including type arguments
+	 * @param annotations
+	 */
+	public FieldInfo(String name, int modifiers, String typeName, String typeCanonicalName, boolean enumType,
+		String genericTypeName, List<AnnotationInfo> annotations)
+	{
+		this.name = name;
+		this.modifiers = modifiers;
+		this.typeName = typeName;
+		this.typeCanonicalName = typeCanonicalName;
+		this.enumType = enumType;
+		this.genericTypeName = genericTypeName;
+		this.annotations = Collections.unmodifiableList(annotations);
+	}
+
+	/**
+	 * @return name of the field
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * @return <code>true</code> for static and transient fields, which are not part of the entity
+	 */
+	public boolean isStaticOrTransient()
+	{
+		return Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers);
+	}
+
+	/**
+	 * @return binary name of the declared type, as returned by {@link Class#getName()}
+	 */
+	public String getTypeName()
+	{
+		return typeName;
+	}
+
+	/**
+	 * @return canonical name of the declared type
+	 */
+	public String getTypeCanonicalName()
+	{
+		return typeCanonicalName;
+	}
+
+	/**
+	 * @return simple name of the declared type
+	 */
+	public String getTypeSimpleName()
+	{
+		return ClassInfo.getSimpleName(typeCanonicalName);
+	}
+
+	/**
+	 * @return <code>true</code> if the declared type is an enum
+	 */
+	public boolean isEnumType()
+	{
+		return enumType;
+	}
+
+	/**
+	 * @return declared type including type arguments
+	 */
+	public String getGenericTypeName()
+	{
+		return genericTypeName;
+	}
+
+	/**
+	 * @return annotations of the field
+	 */
+	public List<AnnotationInfo> getAnnotations()
+	{
+		return annotations;
+	}
+
+	/**
+	 * @param type
+	 *            fully qualified name of the annotation type
+	 * @return annotation or <code>null</code> if the field is not annotated with it
+	 */
+	public AnnotationInfo getAnnotation(String type)
+	{
+		return ClassInfo.find(annotations, type);
+	}
+
+	@Override
+	public String toString()
+	{
+		return genericTypeName + " " + name;
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.model;
+
+/**
+ * Reads field models of entities by class name. Implementations must be thread safe, entities are
+ * read concurrently.
+ *
+ * @author rozkovec
+ * @see ReflectionMetadataProvider
+ * @see name.berries.wicket.reflection.classfile.ClassFileMetadataProvider
+ */
+public interface MetadataProvider
+{
+	/**
+	 * @param className
+	 *            binary name of the class
+	 * @return class info
+	 * @throws IllegalArgumentException
+	 *             when the class does not exist
+	 */
+	ClassInfo read(String className);
+
+	/**
+	 * @param className
+	 *            binary name of the class
+	 * @return <code>true</code> if the class exists
+	 */
+	boolean exists(String className);
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.model;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Reads {@link ClassInfo} of a loaded class by reflection. Classes do not change once loaded,
+ * the result is cached per class.
+ *
+ * @author rozkovec
+ */
+public final class ReflectionClassReader
+{
+	private static final ClassValue<ClassInfo> CLASS_INFO = new ClassValue<ClassInfo>()
+	{
+		@Override
+		protected ClassInfo computeValue(Class<?> type)
+		{
+			return readClass(type);
+		}
+	};
+
+	private ReflectionClassReader()
+	{
+	}
+
+	/**
+	 * @param clazz
+	 * @return class info
+	 */
+	public static ClassInfo read(Class<?> clazz)
+	{
+		return CLASS_INFO.get(clazz);
+	}
+
+	private static ClassInfo readClass(Class<?> clazz)
+	{
+		Field[] declaredFields = clazz.getDeclaredFields();
+		List<FieldInfo> fields = new ArrayList<FieldInfo>(declaredFields.length);
+		for (Field field : declaredFields)
+		{
+			Class<?> type = field.getType();
+			fields.add(new FieldInfo(field.getName(), field.getModifiers(), type.getName(), getCanonicalName(type),
+				type.isEnum(), field.getGenericType().getTypeName(), readAnnotations(field.getDeclaredAnnotations())));
+		}
+		return new ClassInfo(clazz.getName(), getCanonicalName(clazz), readAnnotations(clazz.getAnnotations()), fields);
+	}
+
+	private static List<AnnotationInfo> readAnnotations(Annotation[] annotations)
+	{
+		List<AnnotationInfo> infos = new ArrayList<AnnotationInfo>(annotations.length);
+		for (Annotation annotation : annotations)
+		{
+			infos.add(readAnnotation(annotation));
+		}
+		return infos;
+	}
+
+	private static AnnotationInfo readAnnotation(Annotation annotation)
+	{
+		Map<String, Object> values = new HashMap<String, Object>();
+		for (Method member : annotation.annotationType().getDeclaredMethods())
+		{
+			Object value;
+			try
+			{
+				member.setAccessible(true);
+				value = member.invoke(annotation);
+			}
+			catch (ReflectiveOperationException | RuntimeException e)
+			{
+				continue;
+			}
+
+			// only explicit values, as the other readers see them
+			if (Objects.deepEquals(value, member.getDefaultValue()) == false)
+			{
+				values.put(member.getName(), toValue(value));
+			}
+		}
+		return new AnnotationInfo(annotation.annotationType().getName(), values);
+	}
+
+	private static Object toValue(Object value)
+	{
+		if (value instanceof Class)
+		{
+			return getCanonicalName((Class<?>)value);
+		}
+		if (value instanceof Enum)
+		{
+			return ((Enum<?>)value).name();
+		}
+		if (value instanceof Annotation)
+		{
+			return readAnnotation((Annotation)value);
+		}
+		if (value.getClass().isArray())
+		{
+			int length = Array.getLength(value);
+			List<Object> list = new ArrayList<Object>(length);
+			for (int i = 0; i < length; i++)
+			{
+				list.add(toValue(Array.get(value, i)));
+			}
+			return list;
+		}
+		return value;
+	}
+
+	private static String getCanonicalName(Class<?> type)
+	{
+		String canonicalName = type.getCanonicalName();
+		return canonicalName != null ? canonicalName : type.getName();
+	}
+}
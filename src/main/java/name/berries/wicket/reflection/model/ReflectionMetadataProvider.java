@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.model;
+
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * Loads the classes, without initializing them, and reads them by {@link ReflectionClassReader}.
+ * All dependencies of the entities must be on the classpath.
+ *
+ * @author rozkovec
+ */
+public class ReflectionMetadataProvider implements MetadataProvider
+{
+	private final ClassLoader classLoader;
+
+	/**
+	 * Construct.
+	 *
+	 * @param classLoader
+	 *            loader of the entities
+	 */
+	public ReflectionMetadataProvider(ClassLoader classLoader)
+	{
+		this.classLoader = Args.notNull(classLoader, "classLoader");
+	}
+
+	@Override
+	public ClassInfo read(String className)
+	{
+		try
+		{
+			return ReflectionClassReader.read(Class.forName(className, false, classLoader));
+		}
+		catch (ClassNotFoundException e)
+		{
+			throw new IllegalArgumentException("Class not found: " + className, e);
+		}
+	}
+
+	@Override
+	public boolean exists(String className)
+	{
+		try
+		{
+			Class.forName(className, false, classLoader);
+			return true;
+		}
+		catch (ClassNotFoundException | LinkageError e)
+		{
+			return false;
+		}
+	}
+}
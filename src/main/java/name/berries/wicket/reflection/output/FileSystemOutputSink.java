@@ -0,0 +1,421 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.output;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * Writes files into a directory, each entity has its own subdirectory. Files whose content did
+ * not change are not written, so their modification time stays the same. Content is compared
+ * with the existing file before anything is written; changed content is written into a temporary
+ * file next to the target, which is atomically moved into place, so an interrupted run or a
+ * compiler reading the output concurrently never sees a partially written file. Large files are
+ * streamed into the temporary file and compared by their digest, they are never held in memory
+ * as a whole.
+ *
+ * @author rozkovec
+ */
+public class FileSystemOutputSink implements OutputSink
+{
+	private static final int BUFFER_SIZE = 8192;
+
+	/** content up to this size is compared in memory, before any file is created */
+	private static final int MEMORY_THRESHOLD = 256 * 1024;
+
+	private final Path root;
+
+	private final Set<Path> createdDirectories = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+
+	/**
+	 * Construct.
+	 *
+	 * @param root
+	 *            output directory, created when needed
+	 */
+	public FileSystemOutputSink(Path root)
+	{
+		this.root = Args.notNull(root, "root");
+	}
+
+	/**
+	 * Gets root.
+	 *
+	 * @return output directory
+	 */
+	public Path getRoot()
+	{
+		return root;
+	}
+
+	@Override
+	public boolean write(String path, final CharSequence content, Charset charset) throws IOException
+	{
+		return write(path, writer -> writer.append(content), charset);
+	}
+
+	/**
+	 * Encodes the content into memory and compares it with the existing file, a temporary file is
+	 * created and moved into place only when the content changed. Content larger than
+	 * {@value #MEMORY_THRESHOLD} bytes is streamed into the temporary file and compared by its
+	 * digest instead.
+	 */
+	@Override
+	public boolean write(String path, ContentWriter content, Charset charset) throws IOException
+	{
+		Path file = resolve(path);
+		Path directory = file.getParent();
+
+		// readers never see a half written file, the content is moved into place as a whole;
+		// Files.createTempFile is not used, it would create the file readable only by the owner
+		Path temp = directory.resolve(
+			"." + file.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+		ContentBuffer buffer = new ContentBuffer(directory, temp);
+		try
+		{
+			try (Writer writer = new BufferedWriter(new OutputStreamWriter(buffer, charset), BUFFER_SIZE))
+			{
+				content.writeTo(writer);
+			}
+
+			if (buffer.isSpilled())
+			{
+				if (hasContent(file, buffer.size, buffer.digest.digest()))
+				{
+					return false;
+				}
+			}
+			else
+			{
+				if (hasContent(file, buffer.bytes, buffer.size))
+				{
+					return false;
+				}
+				try (FileChannel channel = createTemp(directory, temp))
+				{
+					writeFully(channel, ByteBuffer.wrap(buffer.bytes, 0, (int)buffer.size));
+				}
+			}
+			move(temp, file);
+			temp = null;
+		}
+		finally
+		{
+			if (temp != null)
+			{
+				Files.deleteIfExists(temp);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return <code>true</code> if the file exists and has exactly the given content
+	 */
+	private static boolean hasContent(Path file, byte[] content, long size) throws IOException
+	{
+		// single stat tells both whether the file exists and whether its size matches
+		if (hasSize(file, size) == false)
+		{
+			return false;
+		}
+
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int position = 0;
+		try (InputStream in = Files.newInputStream(file))
+		{
+			int read;
+			while ((read = in.read(buffer)) >= 0)
+			{
+				if (position + read > size)
+				{
+					return false;
+				}
+				for (int i = 0; i < read; i++)
+				{
+					if (buffer[i] != content[position + i])
+					{
+						return false;
+					}
+				}
+				position += read;
+			}
+		}
+		return position == size;
+	}
+
+	/**
+	 * @return <code>true</code> if the file exists and has the given size and digest
+	 */
+	private static boolean hasContent(Path file, long size, byte[] expectedDigest) throws IOException
+	{
+		if (hasSize(file, size) == false)
+		{
+			return false;
+		}
+
+		MessageDigest digest = newDigest();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest))
+		{
+			while (in.read(buffer) >= 0)
+			{
+				// digested while reading
+			}
+		}
+		return MessageDigest.isEqual(digest.digest(), expectedDigest);
+	}
+
+	private static boolean hasSize(Path file, long size) throws IOException
+	{
+		BasicFileAttributes attributes = readAttributes(file);
+		return attributes != null && attributes.isRegularFile() && attributes.size() == size;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+	}
+
+	private static MessageDigest newDigest()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static BasicFileAttributes readAttributes(Path file) throws IOException
+	{
+		try
+		{
+			return Files.readAttributes(file, BasicFileAttributes.class);
+		}
+		catch (NoSuchFileException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Creates the temporary file, its directory is created when needed. A directory removed since
+	 * it was created, e.g. by <code>mvn clean</code> while the sink is used by a long running watch,
+	 * is created again.
+	 */
+	private FileChannel createTemp(Path directory, Path temp) throws IOException
+	{
+		createDirectory(directory);
+		try
+		{
+			return FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		}
+		catch (NoSuchFileException e)
+		{
+			createdDirectories.remove(directory);
+			createDirectory(directory);
+			return FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		}
+	}
+
+	/**
+	 * Directories are created only once, all files of an entity share one directory.
+	 *
+	 * @param directory
+	 * @throws IOException
+	 */
+	private void createDirectory(Path directory) throws IOException
+	{
+		if (createdDirectories.contains(directory) == false)
+		{
+			Files.createDirectories(directory);
+			createdDirectories.add(directory);
+		}
+	}
+
+	private static void move(Path source, Path target) throws IOException
+	{
+		try
+		{
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (AtomicMoveNotSupportedException e)
+		{
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	@Override
+	public CharSequence read(String path, Charset charset) throws IOException
+	{
+		Path file = resolve(path);
+		if (Files.isRegularFile(file) == false)
+		{
+			return null;
+		}
+		return new String(Files.readAllBytes(file), charset);
+	}
+
+	@Override
+	public boolean exists(String path)
+	{
+		return Files.isRegularFile(resolve(path));
+	}
+
+	@Override
+	public boolean delete(String path) throws IOException
+	{
+		Path file = resolve(path);
+		if (Files.deleteIfExists(file) == false)
+		{
+			return false;
+		}
+		createdDirectories.clear();
+
+		// remove directories left empty, but never the root
+		for (Path directory = file.getParent(); directory != null &&
+			directory.startsWith(root) && directory.equals(root) == false; directory = directory.getParent())
+		{
+			try
+			{
+				Files.deleteIfExists(directory);
+			}
+			catch (DirectoryNotEmptyException e)
+			{
+				break;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Collects the encoded content in memory. Once it exceeds {@value #MEMORY_THRESHOLD} bytes, the
+	 * content is streamed into the temporary file and digested on the way.
+	 */
+	private final class ContentBuffer extends OutputStream
+	{
+		private final Path directory;
+		private final Path temp;
+
+		private byte[] bytes = new byte[BUFFER_SIZE];
+		private long size;
+
+		private MessageDigest digest;
+		private OutputStream out;
+
+		private ContentBuffer(Path directory, Path temp)
+		{
+			this.directory = directory;
+			this.temp = temp;
+		}
+
+		private boolean isSpilled()
+		{
+			return out != null;
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			write(new byte[] { (byte)b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			if (out == null && size + len > MEMORY_THRESHOLD)
+			{
+				digest = newDigest();
+				out = new DigestOutputStream(Channels.newOutputStream(createTemp(directory, temp)), digest);
+				out.write(bytes, 0, (int)size);
+				bytes = null;
+			}
+
+			if (out != null)
+			{
+				out.write(b, off, len);
+			}
+			else
+			{
+				if (size + len > bytes.length)
+				{
+					bytes = Arrays.copyOf(bytes, Math.min(Math.max(bytes.length * 2, (int)size + len), MEMORY_THRESHOLD));
+				}
+				System.arraycopy(b, off, bytes, (int)size, len);
+			}
+			size += len;
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			if (out != null)
+			{
+				out.close();
+			}
+		}
+	}
+
+	@Override
+	public void close()
+	{
+	}
+
+	private Path resolve(String path)
+	{
+		return root.resolve(path);
+	}
+
+	@Override
+	public String toString()
+	{
+		return root.toString();
+	}
+}
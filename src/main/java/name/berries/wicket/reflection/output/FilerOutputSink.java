@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.output;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+import javax.annotation.processing.Filer;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Writes generated files through the {@link Filer} of an annotation processor. Java sources are
+ * compiled in the next round of the compilation, other files are written among the classes.
+ * Paths are relative to the base package.
+ * <p>
+ * Files can not be read back, every file is written and a file can be written only once per
+ * compilation. The sink can not be used for incremental generation.
+ *
+ * @author rozkovec
+ */
+public class FilerOutputSink implements OutputSink
+{
+	private static final String JAVA_SUFFIX = ".java";
+
+	private final Filer filer;
+	private final String basePackage;
+
+	/**
+	 * Construct.
+	 *
+	 * @param filer
+	 * @param basePackage
+	 *            package the paths are relative to
+	 */
+	public FilerOutputSink(Filer filer, String basePackage)
+	{
+		this.filer = filer;
+		this.basePackage = basePackage;
+	}
+
+	/**
+	 * {@link Filer} is not thread safe, files are written one by one. Streamed content is
+	 * collected in memory first, so that rendering does not hold the lock.
+	 */
+	@Override
+	public synchronized boolean write(String path, CharSequence content, Charset charset) throws IOException
+	{
+		int slash = path.lastIndexOf('/');
+		String packageName = slash < 0 ? basePackage
+			: join(basePackage, path.substring(0, slash).replace('/', '.'));
+		String fileName = path.substring(slash + 1);
+
+		if (fileName.endsWith(JAVA_SUFFIX))
+		{
+			String className = fileName.substring(0, fileName.length() - JAVA_SUFFIX.length());
+			try (Writer writer = new BufferedWriter(filer.createSourceFile(join(packageName, className)).openWriter()))
+			{
+				writer.append(content);
+			}
+		}
+		else
+		{
+			FileObject resource = filer.createResource(StandardLocation.CLASS_OUTPUT, packageName, fileName);
+			try (Writer writer = new BufferedWriter(new OutputStreamWriter(resource.openOutputStream(), charset)))
+			{
+				writer.append(content);
+			}
+		}
+		return true;
+	}
+
+	private static String join(String packageName, String name)
+	{
+		return packageName.isEmpty() ? name : packageName + "." + name;
+	}
+
+	@Override
+	public CharSequence read(String path, Charset charset)
+	{
+		return null;
+	}
+
+	@Override
+	public boolean exists(String path)
+	{
+		return false;
+	}
+
+	@Override
+	public boolean delete(String path)
+	{
+		return false;
+	}
+
+	@Override
+	public boolean isRewritable()
+	{
+		return false;
+	}
+
+	@Override
+	public void close()
+	{
+	}
+}
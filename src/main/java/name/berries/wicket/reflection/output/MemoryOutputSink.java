@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.output;
+
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Keeps the generated files in memory, useful for tests and for tools that post-process the
+ * output themselves.
+ *
+ * @author rozkovec
+ */
+public class MemoryOutputSink implements OutputSink
+{
+	private final ConcurrentNavigableMap<String, CharSequence> files = new ConcurrentSkipListMap<String, CharSequence>();
+
+	@Override
+	public boolean write(String path, CharSequence content, Charset charset)
+	{
+		String value = content.toString();
+		CharSequence previous = files.put(path, value);
+		return previous == null || value.contentEquals(previous) == false;
+	}
+
+	@Override
+	public CharSequence read(String path, Charset charset)
+	{
+		return files.get(path);
+	}
+
+	@Override
+	public boolean exists(String path)
+	{
+		return files.containsKey(path);
+	}
+
+	@Override
+	public boolean delete(String path)
+	{
+		return files.remove(path) != null;
+	}
+
+	/**
+	 * @return generated files sorted by path
+	 */
+	public Map<String, CharSequence> getFiles()
+	{
+		return Collections.unmodifiableMap(files);
+	}
+
+	@Override
+	public void close()
+	{
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+
+/**
+ * Destination of the generated files. Paths are relative to the root of the sink and always
+ * separated by <code>/</code>, e.g. <code>examplepojo/EditExamplePojoPanel.java</code>.
+ * <p>
+ * Implementations must be thread safe, files of several entities are written concurrently.
+ *
+ * @author rozkovec
+ */
+public interface OutputSink extends Closeable
+{
+	/**
+	 * Writes the file, replacing previous content.
+	 *
+	 * @param path
+	 *            relative path of the file
+	 * @param content
+	 * @param charset
+	 *            encoding of the file
+	 * @return <code>false</code> if the file already had the same content and was left untouched
+	 * @throws IOException
+	 */
+	boolean write(String path, CharSequence content, Charset charset) throws IOException;
+
+	/**
+	 * Writes the file as it is produced, replacing previous content. Sinks able to stream the
+	 * content override it, by default the content is collected and passed to
+	 * {@link #write(String, CharSequence, Charset)}.
+	 *
+	 * @param path
+	 *            relative path of the file
+	 * @param content
+	 * @param charset
+	 *            encoding of the file
+	 * @return <code>false</code> if the file already had the same content and was left untouched
+	 * @throws IOException
+	 */
+	default boolean write(String path, ContentWriter content, Charset charset) throws IOException
+	{
+		StringWriter writer = new StringWriter(8192);
+		content.writeTo(writer);
+		return write(path, writer.getBuffer(), charset);
+	}
+
+	/**
+	 * Reads file previously written to the sink.
+	 *
+	 * @param path
+	 *            relative path of the file
+	 * @param charset
+	 *            encoding of the file
+	 * @return content of the file or <code>null</code> if there is no such file or the sink can
+	 *         not read its content
+	 * @throws IOException
+	 */
+	CharSequence read(String path, Charset charset) throws IOException;
+
+	/**
+	 * @param path
+	 *            relative path of the file
+	 * @return <code>true</code> if the file exists
+	 */
+	boolean exists(String path);
+
+	/**
+	 * Deletes the file, empty parent directories are deleted as well where it makes sense.
+	 *
+	 * @param path
+	 *            relative path of the file
+	 * @return <code>true</code> if the file was deleted, <code>false</code> if there was no such
+	 *         file or the sink does not support deleting
+	 * @throws IOException
+	 */
+	boolean delete(String path) throws IOException;
+
+	/**
+	 * Sinks able to write each file only once return <code>false</code>, they can not be used for
+	 * {@link name.berries.wicket.reflection.ReflectionUtil#setIncremental(boolean) incremental}
+	 * generation, which rewrites its manifest.
+	 *
+	 * @return <code>true</code> if a file can be written again, replacing its content
+	 */
+	default boolean isRewritable()
+	{
+		return true;
+	}
+}
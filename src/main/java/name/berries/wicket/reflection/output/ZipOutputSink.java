@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.output;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * Streams files into a single zip (or sources jar) archive, no temporary files are created. The
+ * archive is complete only after the sink is closed.
+ * <p>
+ * Archive can not be read back nor changed, each file can be written only once. The sink can not
+ * be used for incremental generation.
+ *
+ * @author rozkovec
+ */
+public class ZipOutputSink implements OutputSink
+{
+	private final ZipOutputStream zip;
+
+	private final Set<String> entries = new HashSet<String>();
+
+	/**
+	 * Construct.
+	 *
+	 * @param archive
+	 *            file of the archive, replaced if it exists
+	 * @throws IOException
+	 */
+	public ZipOutputSink(Path archive) throws IOException
+	{
+		this(new BufferedOutputStream(Files.newOutputStream(Args.notNull(archive, "archive"))));
+	}
+
+	/**
+	 * Construct.
+	 *
+	 * @param out
+	 *            stream of the archive, closed with the sink
+	 */
+	public ZipOutputSink(OutputStream out)
+	{
+		zip = new ZipOutputStream(Args.notNull(out, "out"));
+	}
+
+	@Override
+	public boolean write(String path, final CharSequence content, Charset charset) throws IOException
+	{
+		return write(path, writer -> writer.append(content), charset);
+	}
+
+	@Override
+	public synchronized boolean write(String path, ContentWriter content, Charset charset) throws IOException
+	{
+		if (entries.add(path) == false)
+		{
+			throw new IllegalStateException("File " + path + " was already written into the archive.");
+		}
+		zip.putNextEntry(new ZipEntry(path));
+		// not closed, that would close the archive
+		Writer writer = new BufferedWriter(new OutputStreamWriter(zip, charset));
+		content.writeTo(writer);
+		writer.flush();
+		zip.closeEntry();
+		return true;
+	}
+
+	@Override
+	public CharSequence read(String path, Charset charset)
+	{
+		return null;
+	}
+
+	@Override
+	public synchronized boolean exists(String path)
+	{
+		return entries.contains(path);
+	}
+
+	@Override
+	public boolean delete(String path)
+	{
+		return false;
+	}
+
+	@Override
+	public boolean isRewritable()
+	{
+		return false;
+	}
+
+	@Override
+	public synchronized void close() throws IOException
+	{
+		zip.close();
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.processor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+
+import name.berries.wicket.reflection.EntityMetadata;
+import name.berries.wicket.reflection.ReflectionTemplate;
+import name.berries.wicket.reflection.ReflectionUtil;
+import name.berries.wicket.reflection.annotations.GenerateComponents;
+import name.berries.wicket.reflection.model.AnnotationInfo;
+import name.berries.wicket.reflection.model.ClassInfo;
+import name.berries.wicket.reflection.output.FilerOutputSink;
+
+/**
+ * Generates components of entities annotated with {@link GenerateComponents} during compilation.
+ * The field model is read from the compiler's element model instead of reflection, the templates
+ * are the same.
+ * <p>
+ * Merged properties of all entities are written when the option
+ * <code>-A{@value #APPLICATION_NAME}=&lt;application class&gt;</code> is set.
+ *
+ * @author rozkovec
+ */
+@SupportedAnnotationTypes("name.berries.wicket.reflection.annotations.GenerateComponents")
+@SupportedOptions(ComponentProcessor.APPLICATION_NAME)
+public class ComponentProcessor extends AbstractProcessor
+{
+	/** simple name of the application class, names the merged properties */
+	public static final String APPLICATION_NAME = "wicket.generator.applicationName";
+
+	/** generators by output package and template set */
+	private final Map<String, ReflectionUtil> generators = new LinkedHashMap<String, ReflectionUtil>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion()
+	{
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+	{
+		// templates and velocity are loaded by the class loader of the processor
+		Thread thread = Thread.currentThread();
+		ClassLoader contextClassLoader = thread.getContextClassLoader();
+		thread.setContextClassLoader(ComponentProcessor.class.getClassLoader());
+		try
+		{
+			ElementClassReader reader = new ElementClassReader(processingEnv.getElementUtils(),
+				processingEnv.getTypeUtils());
+			for (Element element : roundEnv.getElementsAnnotatedWith(GenerateComponents.class))
+			{
+				if (element.getKind() != ElementKind.CLASS)
+				{
+					error("@GenerateComponents is allowed only on classes", element);
+					continue;
+				}
+				generate(reader.read((TypeElement)element), element);
+			}
+
+			if (roundEnv.processingOver())
+			{
+				createMergedProperties();
+			}
+		}
+		finally
+		{
+			thread.setContextClassLoader(contextClassLoader);
+		}
+		return true;
+	}
+
+	private void generate(ClassInfo classInfo, Element element)
+	{
+		AnnotationInfo annotation = classInfo.getAnnotation(GenerateComponents.class.getName());
+
+		String outputPackage = annotation.getString("outputPackage", "");
+		if (outputPackage.isEmpty())
+		{
+			outputPackage = processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+		}
+		ReflectionTemplate template = ReflectionTemplate.valueOf(annotation.getString("template",
+			ReflectionTemplate.BOOTSTRAP_HORIZONTAL.name()));
+		String factory = annotation.getString("factory", Void.class.getName());
+
+		try
+		{
+			getGenerator(outputPackage, template).createComponents(EntityMetadata.of(classInfo),
+				Void.class.getName().equals(factory) ? null : factory);
+		}
+		catch (RuntimeException e)
+		{
+			error("Unable to generate components: " + e, element);
+		}
+	}
+
+	private ReflectionUtil getGenerator(String outputPackage, ReflectionTemplate template)
+	{
+		String key = outputPackage + ":" + template.name();
+		ReflectionUtil generator = generators.get(key);
+		if (generator == null)
+		{
+			generator = new ReflectionUtil(new FilerOutputSink(processingEnv.getFiler(), outputPackage),
+				outputPackage, template);
+			generators.put(key, generator);
+		}
+		return generator;
+	}
+
+	private void createMergedProperties()
+	{
+		String applicationName = processingEnv.getOptions().get(APPLICATION_NAME);
+		if (applicationName == null)
+		{
+			return;
+		}
+		for (ReflectionUtil generator : generators.values())
+		{
+			try
+			{
+				generator.createMergedProperties(applicationName);
+			}
+			catch (RuntimeException e)
+			{
+				error("Unable to generate merged properties: " + e, null);
+			}
+		}
+	}
+
+	private void error(String message, Element element)
+	{
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+}
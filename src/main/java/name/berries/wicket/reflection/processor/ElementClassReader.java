@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.processor;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import name.berries.wicket.reflection.model.AnnotationInfo;
+import name.berries.wicket.reflection.model.ClassInfo;
+import name.berries.wicket.reflection.model.FieldInfo;
+
+/**
+ * Reads {@link ClassInfo} from the compiler's element model, so that the classes do not have to be
+ * loaded.
+ *
+ * @author rozkovec
+ */
+public class ElementClassReader
+{
+	private final Elements elements;
+	private final Types types;
+
+	/**
+	 * Construct.
+	 *
+	 * @param elements
+	 * @param types
+	 */
+	public ElementClassReader(Elements elements, Types types)
+	{
+		this.elements = elements;
+		this.types = types;
+	}
+
+	/**
+	 * @param type
+	 * @return class info
+	 */
+	public ClassInfo read(TypeElement type)
+	{
+		List<VariableElement> declaredFields = ElementFilter.fieldsIn(type.getEnclosedElements());
+		List<FieldInfo> fields = new ArrayList<FieldInfo>(declaredFields.size());
+		for (VariableElement field : declaredFields)
+		{
+			TypeMirror fieldType = field.asType();
+			TypeMirror erasure = types.erasure(fieldType);
+			Element typeElement = types.asElement(erasure);
+
+			fields.add(new FieldInfo(field.getSimpleName().toString(), getModifiers(field), getBinaryName(erasure),
+				getCanonicalName(erasure), typeElement != null && typeElement.getKind() == ElementKind.ENUM,
+				fieldType.toString(), readAnnotations(field.getAnnotationMirrors())));
+		}
+
+		return new ClassInfo(elements.getBinaryName(type).toString(), type.getQualifiedName().toString(),
+			readAnnotations(elements.getAllAnnotationMirrors(type)), fields);
+	}
+
+	private static int getModifiers(Element element)
+	{
+		int modifiers = 0;
+		for (javax.lang.model.element.Modifier modifier : element.getModifiers())
+		{
+			switch (modifier)
+			{
+				case PUBLIC :
+					modifiers |= Modifier.PUBLIC;
+					break;
+				case PROTECTED :
+					modifiers |= Modifier.PROTECTED;
+					break;
+				case PRIVATE :
+					modifiers |= Modifier.PRIVATE;
+					break;
+				case STATIC :
+					modifiers |= Modifier.STATIC;
+					break;
+				case FINAL :
+					modifiers |= Modifier.FINAL;
+					break;
+				case TRANSIENT :
+					modifiers |= Modifier.TRANSIENT;
+					break;
+				case VOLATILE :
+					modifiers |= Modifier.VOLATILE;
+					break;
+				default :
+					break;
+			}
+		}
+		return modifiers;
+	}
+
+	/**
+	 * @return name as returned by {@link Class#getName()}
+	 */
+	private String getBinaryName(TypeMirror type)
+	{
+		if (type.getKind() == TypeKind.ARRAY)
+		{
+			return "[" + getDescriptor(((ArrayType)type).getComponentType());
+		}
+		if (type.getKind().isPrimitive())
+		{
+			return type.getKind().name().toLowerCase(Locale.ROOT);
+		}
+		Element element = types.asElement(type);
+		if (element instanceof TypeElement)
+		{
+			return elements.getBinaryName((TypeElement)element).toString();
+		}
+		return type.toString();
+	}
+
+	private String getDescriptor(TypeMirror type)
+	{
+		switch (type.getKind())
+		{
+			case BOOLEAN :
+				return "Z";
+			case BYTE :
+				return "B";
+			case CHAR :
+				return "C";
+			case SHORT :
+				return "S";
+			case INT :
+				return "I";
+			case LONG :
+				return "J";
+			case FLOAT :
+				return "F";
+			case DOUBLE :
+				return "D";
+			case ARRAY :
+				return "[" + getDescriptor(((ArrayType)type).getComponentType());
+			default :
+				return "L" + getBinaryName(type) + ";";
+		}
+	}
+
+	private String getCanonicalName(TypeMirror type)
+	{
+		if (type.getKind() == TypeKind.ARRAY)
+		{
+			return getCanonicalName(((ArrayType)type).getComponentType()) + "[]";
+		}
+		Element element = types.asElement(type);
+		if (element instanceof TypeElement)
+		{
+			return ((TypeElement)element).getQualifiedName().toString();
+		}
+		return types.erasure(type).toString();
+	}
+
+	private List<AnnotationInfo> readAnnotations(List<? extends AnnotationMirror> mirrors)
+	{
+		List<AnnotationInfo> annotations = new ArrayList<AnnotationInfo>(mirrors.size());
+		for (AnnotationMirror mirror : mirrors)
+		{
+			annotations.add(readAnnotation(mirror));
+		}
+		return annotations;
+	}
+
+	private AnnotationInfo readAnnotation(AnnotationMirror mirror)
+	{
+		Map<String, Object> values = new HashMap<String, Object>();
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : mirror.getElementValues()
+			.entrySet())
+		{
+			values.put(value.getKey().getSimpleName().toString(), toValue(value.getValue().getValue()));
+		}
+		TypeElement annotationType = (TypeElement)mirror.getAnnotationType().asElement();
+		return new AnnotationInfo(elements.getBinaryName(annotationType).toString(), values);
+	}
+
+	private Object toValue(Object value)
+	{
+		if (value instanceof TypeMirror)
+		{
+			return getCanonicalName(types.erasure((TypeMirror)value));
+		}
+		if (value instanceof VariableElement)
+		{
+			// enum constant
+			return ((VariableElement)value).getSimpleName().toString();
+		}
+		if (value instanceof AnnotationMirror)
+		{
+			return readAnnotation((AnnotationMirror)value);
+		}
+		if (value instanceof List)
+		{
+			List<?> values = (List<?>)value;
+			List<Object> list = new ArrayList<Object>(values.size());
+			for (Object element : values)
+			{
+				list.add(toValue(((AnnotationValue)element).getValue()));
+			}
+			return list;
+		}
+		return value;
+	}
+}
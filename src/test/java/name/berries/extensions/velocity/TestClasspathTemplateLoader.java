@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.extensions.velocity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.apache.velocity.Template;
+import org.apache.wicket.util.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Serves templates from the packed index and loose templates edited since they were packed
+ */
+public class TestClasspathTemplateLoader
+{
+	private static final long PACKED = 1000000000000L;
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private ClassLoader previousLoader;
+	private URLClassLoader loader;
+	private Path template;
+
+	@Before
+	public void packTemplates() throws Exception
+	{
+		Path directory = folder.newFolder("templates").toPath();
+		template = directory.resolve("Panel.tmpl");
+		Files.write(template, "packed".getBytes(StandardCharsets.UTF_8));
+		TemplatePacker.pack(directory);
+		Files.setLastModifiedTime(template, FileTime.fromMillis(PACKED - 1000));
+		Files.setLastModifiedTime(directory.resolve(TemplateIndex.INDEX_NAME), FileTime.fromMillis(PACKED));
+
+		// the edited template is not packed again
+		Files.write(template, "edited".getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(template, FileTime.fromMillis(PACKED + 1000));
+
+		previousLoader = Thread.currentThread().getContextClassLoader();
+		loader = new URLClassLoader(new URL[] { folder.getRoot().toURI().toURL() }, previousLoader);
+		Thread.currentThread().setContextClassLoader(loader);
+	}
+
+	@After
+	public void restoreClassLoader() throws Exception
+	{
+		Thread.currentThread().setContextClassLoader(previousLoader);
+		loader.close();
+	}
+
+	@Test
+	public void packedTemplateIsServedWithoutModificationCheck() throws Exception
+	{
+		ClasspathTemplateLoader templateLoader = new ClasspathTemplateLoader();
+		templateLoader.setModificationCheckInterval(0);
+
+		assertEquals("packed", read(templateLoader));
+		Template resource = newResource(templateLoader);
+		assertEquals(PACKED, resource.getLastModified());
+		assertFalse(templateLoader.isSourceModified(resource));
+	}
+
+	@Test
+	public void editedTemplateIsServedWithModificationCheck() throws Exception
+	{
+		ClasspathTemplateLoader templateLoader = new ClasspathTemplateLoader();
+		templateLoader.setModificationCheckInterval(2);
+		Template resource = new Template();
+		resource.setName("templates/Panel.tmpl");
+		resource.setLastModified(PACKED);
+
+		assertTrue(templateLoader.isSourceModified(resource));
+		assertEquals("edited", read(templateLoader));
+		assertEquals(PACKED + 1000, templateLoader.getLastModified(resource));
+	}
+
+	private static Template newResource(ClasspathTemplateLoader templateLoader)
+	{
+		Template resource = new Template();
+		resource.setName("templates/Panel.tmpl");
+		resource.setLastModified(templateLoader.getLastModified(resource));
+		return resource;
+	}
+
+	private static String read(ClasspathTemplateLoader templateLoader) throws Exception
+	{
+		try (InputStream in = templateLoader.getResourceStream("templates/Panel.tmpl"))
+		{
+			return new String(IOUtils.toByteArray(in), StandardCharsets.UTF_8);
+		}
+	}
+}
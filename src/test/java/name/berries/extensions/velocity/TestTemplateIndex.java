@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.extensions.velocity;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Writes template indexes and reads them back
+ */
+public class TestTemplateIndex
+{
+	@Test
+	public void readsWrittenTemplates() throws IOException
+	{
+		Map<String, byte[]> templates = new LinkedHashMap<String, byte[]>();
+		templates.put("EditPanel.java.tmpl", "package ${package};\n".getBytes(StandardCharsets.UTF_8));
+		templates.put("Empty.tmpl", new byte[0]);
+		templates.put("Popisky_čeština.properties.tmpl", "název=Název\n".getBytes(StandardCharsets.UTF_8));
+
+		TemplateIndex index = TemplateIndex.read(new ByteArrayInputStream(write(templates)));
+
+		assertEquals(new ArrayList<String>(templates.keySet()), new ArrayList<String>(index.getTemplates().keySet()));
+		for (Map.Entry<String, byte[]> template : templates.entrySet())
+		{
+			assertArrayEquals(template.getValue(), index.get(template.getKey()));
+		}
+		assertNull(index.get("Missing.tmpl"));
+	}
+
+	@Test
+	public void readsEmptyIndex() throws IOException
+	{
+		TemplateIndex index = TemplateIndex.read(new ByteArrayInputStream(write(new LinkedHashMap<String, byte[]>())));
+
+		assertEquals(0, index.getTemplates().size());
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsOtherContent() throws IOException
+	{
+		TemplateIndex.read(new ByteArrayInputStream("package ${package};".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsTruncatedIndex() throws IOException
+	{
+		Map<String, byte[]> templates = new LinkedHashMap<String, byte[]>();
+		templates.put("EditPanel.java.tmpl", "package ${package};\n".getBytes(StandardCharsets.UTF_8));
+		byte[] bytes = write(templates);
+
+		TemplateIndex.read(new ByteArrayInputStream(bytes, 0, bytes.length - 1));
+	}
+
+	private static byte[] write(Map<String, byte[]> templates) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		TemplateIndex.write(templates, out);
+		return out.toByteArray();
+	}
+}
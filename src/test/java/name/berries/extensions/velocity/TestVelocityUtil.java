@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.extensions.velocity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.util.Properties;
+
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.junit.Test;
+
+/**
+ * Creates velocity instances with the same configuration
+ */
+public class TestVelocityUtil
+{
+	@Test
+	public void newInstanceKeepsConfiguration()
+	{
+		Properties properties = new Properties();
+		properties.setProperty(RuntimeConstants.COUNTER_NAME, "index");
+		VelocityUtil velocity = new VelocityUtil(true, properties);
+
+		VelocityUtil reloaded = velocity.newInstance();
+
+		assertNotSame(velocity.getEngine(), reloaded.getEngine());
+		assertEquals("index", reloaded.getEngine().getProperty(RuntimeConstants.COUNTER_NAME));
+		assertEquals("2", reloaded.getEngine().getProperty("class.resource.loader.modificationCheckInterval"));
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles sources of a test with the classpath of the tests, so that tests can work with class
+ * files and annotation processing of classes that are not part of the project.
+ */
+public final class SourceCompiler
+{
+	private final Path directory;
+
+	/**
+	 * Construct.
+	 *
+	 * @param directory
+	 *            sources are written into <code>src</code>, classes into <code>classes</code> and
+	 *            generated sources into <code>generated</code>
+	 */
+	public SourceCompiler(Path directory)
+	{
+		this.directory = directory;
+	}
+
+	/**
+	 * @return directory of the compiled classes
+	 */
+	public Path getClasses()
+	{
+		return directory.resolve("classes");
+	}
+
+	/**
+	 * @return directory of the sources generated by the annotation processors
+	 */
+	public Path getGenerated()
+	{
+		return directory.resolve("generated");
+	}
+
+	/**
+	 * Compiles the sources, fails the test when the compilation fails.
+	 *
+	 * @param sources
+	 *            source code by binary class name
+	 * @throws IOException
+	 */
+	public void compile(Map<String, String> sources) throws IOException
+	{
+		run(sources, "-proc:none");
+	}
+
+	/**
+	 * Only processes the sources by the annotation processors, the sources are not compiled. Errors
+	 * in the files generated by the processors are ignored, they may depend on classes missing from
+	 * the classpath of the tests.
+	 *
+	 * @param sources
+	 *            source code by binary class name
+	 * @param processors
+	 * @throws IOException
+	 */
+	public void process(Map<String, String> sources, Processor... processors) throws IOException
+	{
+		run(sources, "-proc:only", processors);
+	}
+
+	private void run(Map<String, String> sources, String proc, Processor... processors) throws IOException
+	{
+		List<File> files = new ArrayList<File>();
+		for (Map.Entry<String, String> source : sources.entrySet())
+		{
+			Path file = directory.resolve("src").resolve(source.getKey().replace('.', '/') + ".java");
+			Files.createDirectories(file.getParent());
+			Files.write(file, source.getValue().getBytes(StandardCharsets.UTF_8));
+			files.add(file.toFile());
+		}
+		Files.createDirectories(getClasses());
+		Files.createDirectories(getGenerated());
+
+		List<String> options = Arrays.asList(proc, "-d", getClasses().toString(), "-s", getGenerated().toString(),
+			"-classpath", System.getProperty("java.class.path"), "-encoding", "UTF-8");
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null,
+			StandardCharsets.UTF_8))
+		{
+			Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(files);
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, units);
+			task.setProcessors(Arrays.asList(processors));
+			boolean success = task.call();
+			if (success == false && processors.length > 0)
+			{
+				success = true;
+				for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics())
+				{
+					if (diagnostic.getKind() == Diagnostic.Kind.ERROR && isGenerated(diagnostic.getSource()) == false)
+					{
+						success = false;
+					}
+				}
+			}
+			assertTrue(diagnostics.getDiagnostics().toString(), success);
+		}
+	}
+
+	private boolean isGenerated(JavaFileObject source)
+	{
+		return source != null && Paths.get(source.toUri()).startsWith(getGenerated());
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import name.berries.wicket.reflection.annotations.Order;
+import name.berries.wicket.reflection.annotations.SkipField;
+
+/**
+ * Sorts fields of an entity by {@link Order}
+ */
+public class TestEntityMetadata
+{
+	@Test
+	public void orderedFieldsGoFirst()
+	{
+		EntityMetadata metadata = EntityMetadata.of(OrderedEntity.class);
+
+		// equal values keep declaration order rather than name order, unordered fields follow
+		assertEquals(Arrays.asList("zeta", "alpha", "second", "plain", "another"), names(metadata.getViewFields()));
+		assertEquals(Arrays.asList("zeta", "alpha", "second", "plain", "another", "editOnly"),
+			names(metadata.getEditFields()));
+	}
+
+	@Test
+	public void propertiesFieldsAreSortedByName()
+	{
+		EntityMetadata metadata = EntityMetadata.of(OrderedEntity.class);
+
+		assertEquals(Arrays.asList("alpha", "another", "editOnly", "hidden", "plain", "second", "zeta"),
+			names(metadata.getPropertiesFields()));
+	}
+
+	@Test
+	public void unorderedFieldsKeepDeclarationOrder()
+	{
+		EntityMetadata metadata = EntityMetadata.of(UnorderedEntity.class);
+
+		assertEquals(Arrays.asList("c", "a", "b"), names(metadata.getViewFields()));
+	}
+
+	private static List<String> names(List<FieldWrapper> fields)
+	{
+		List<String> names = new ArrayList<String>(fields.size());
+		for (FieldWrapper field : fields)
+		{
+			names.add(field.getName());
+		}
+		return names;
+	}
+
+	@SuppressWarnings("unused")
+	public static class OrderedEntity
+	{
+		private static final long serialVersionUID = 1L;
+
+		private String plain;
+		@Order(2)
+		private String second;
+		@Order(1)
+		private String zeta;
+		@SkipField
+		private String hidden;
+		private String another;
+		@Order(1)
+		private String alpha;
+		@SkipField(includeInEdit = true)
+		private String editOnly;
+		private transient String cached;
+	}
+
+	@SuppressWarnings("unused")
+	public static class UnorderedEntity
+	{
+		private String c;
+		private String a;
+		private String b;
+	}
+}
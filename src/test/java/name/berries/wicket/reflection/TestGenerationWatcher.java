@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import name.berries.wicket.reflection.output.MemoryOutputSink;
+
+/**
+ * Regenerates entities as their class files change
+ */
+public class TestGenerationWatcher
+{
+	private static final String CUSTOMER = "package watch; public class Customer { private String name; %s }";
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final MemoryOutputSink sink = new MemoryOutputSink();
+
+	private GenerationWatcher watcher;
+	private Thread watching;
+
+	@After
+	public void stopWatching() throws Exception
+	{
+		if (watcher != null)
+		{
+			watcher.close();
+			watching.join(TimeUnit.SECONDS.toMillis(10));
+		}
+	}
+
+	@Test(timeout = 30000)
+	public void changedClassIsRegenerated() throws Exception
+	{
+		SourceCompiler compiler = new SourceCompiler(folder.newFolder().toPath());
+		compiler.compile(Collections.singletonMap("watch.Customer", String.format(CUSTOMER, "")));
+		startWatching(compiler.getClasses());
+		assertFalse(isGenerated("customer/EditCustomerPanel.html", "email"));
+
+		compiler.compile(Collections.singletonMap("watch.Customer", String.format(CUSTOMER, "private String email;")));
+
+		awaitGenerated("customer/EditCustomerPanel.html", "email");
+	}
+
+	@Test(timeout = 30000)
+	public void classInCreatedPackageDirectoryIsGenerated() throws Exception
+	{
+		SourceCompiler compiler = new SourceCompiler(folder.newFolder().toPath());
+		compiler.compile(Collections.singletonMap("watch.Customer", String.format(CUSTOMER, "")));
+		SourceCompiler later = new SourceCompiler(folder.newFolder().toPath());
+		Files.createDirectories(later.getClasses());
+		startWatching(compiler.getClasses(), later.getClasses());
+
+		// the watch package directory does not exist in the second classes directory yet
+		later.compile(Collections.singletonMap("watch.Supplier", "package watch; public class Supplier { private String code; }"));
+
+		awaitGenerated("supplier/EditSupplierPanel.html", "code");
+	}
+
+	private void startWatching(Path... classesDirectories) throws Exception
+	{
+		ReflectionUtil generator = new ReflectionUtil(sink, "watch.gen", ReflectionTemplate.BOOTSTRAP_HORIZONTAL);
+		watcher = new GenerationWatcher(generator, Arrays.asList(classesDirectories), Arrays.asList("watch"));
+		watcher.setQuietMillis(50);
+		watcher.generateAll();
+
+		watching = new Thread(() -> {
+			try
+			{
+				watcher.run();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		});
+		watching.start();
+	}
+
+	private void awaitGenerated(String path, String content) throws InterruptedException
+	{
+		while (isGenerated(path, content) == false)
+		{
+			Thread.sleep(10);
+		}
+		assertTrue(watching.isAlive());
+	}
+
+	private boolean isGenerated(String path, String content)
+	{
+		CharSequence file = sink.getFiles().get(path);
+		return file != null && file.toString().contains(content);
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import name.berries.wicket.reflection.annotations.FieldType;
+
+/**
+ * Resolves java types and wicket components of fields
+ */
+public class TestJavaTypeEnum
+{
+	@Test
+	public void registeredTypesAreResolved()
+	{
+		assertTypes("name", JavaTypeEnum.String, WicketTypeEnum.TextField);
+		assertTypes("count", JavaTypeEnum.Integer, WicketTypeEnum.TextField);
+		assertTypes("created", JavaTypeEnum.Date, WicketTypeEnum.DateTextField);
+	}
+
+	@Test
+	public void typeSharingSimpleNameIsNotResolved()
+	{
+		assertTypes("date", JavaTypeEnum.Unknown, WicketTypeEnum.Unknown);
+	}
+
+	@Test
+	public void registeredTypeIsResolved()
+	{
+		assertTypes("price", JavaTypeEnum.Unknown, WicketTypeEnum.Unknown);
+
+		JavaTypeEnum.register(Money.class, JavaTypeEnum.BigDecimal);
+		assertTypes("price", JavaTypeEnum.BigDecimal, WicketTypeEnum.TextField);
+
+		JavaTypeEnum.register(Money.class, JavaTypeEnum.String, WicketTypeEnum.PasswordTextField);
+		assertTypes("price", JavaTypeEnum.String, WicketTypeEnum.PasswordTextField);
+	}
+
+	@Test
+	public void unknownHtmlTypeOfFieldTypeIsResolvedFromJavaType()
+	{
+		assertTypes("note", JavaTypeEnum.Text, WicketTypeEnum.TextArea);
+		assertTypes("annotated", JavaTypeEnum.String, WicketTypeEnum.TextField);
+		assertTypes("secret", JavaTypeEnum.String, WicketTypeEnum.PasswordTextField);
+	}
+
+	private static void assertTypes(String fieldName, JavaTypeEnum javaType, WicketTypeEnum htmlType)
+	{
+		FieldWrapper wrapper;
+		try
+		{
+			wrapper = JavaTypeEnum.getFieldWrapper(TypedEntity.class.getDeclaredField(fieldName));
+		}
+		catch (NoSuchFieldException e)
+		{
+			throw new IllegalArgumentException(e);
+		}
+		assertEquals(fieldName, javaType, wrapper.getJavaType());
+		assertEquals(fieldName, htmlType, wrapper.getHtmlType());
+	}
+
+	@SuppressWarnings("unused")
+	public static class TypedEntity
+	{
+		private String name;
+		private int count;
+		private java.util.Date created;
+		private Date date;
+		private Money price;
+		@FieldType(JavaTypeEnum.Text)
+		private String note;
+		@FieldType
+		private String annotated;
+		@FieldType(htmlType = WicketTypeEnum.PasswordTextField)
+		private String secret;
+	}
+
+	/**
+	 * Shares simple name with {@link JavaTypeEnum#Date}
+	 */
+	public static class Date
+	{
+	}
+
+	/**
+	 * Registered by the test
+	 */
+	public static class Money
+	{
+	}
+}
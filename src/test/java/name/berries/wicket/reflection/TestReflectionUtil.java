@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import name.berries.wicket.reflection.example.pojo.AnotherExamplePojo;
+import name.berries.wicket.reflection.example.pojo.ExamplePojo;
+import name.berries.wicket.reflection.example.pojo.gen.Hook;
+import name.berries.wicket.reflection.model.ClassInfo;
+import name.berries.wicket.reflection.model.MetadataProvider;
+import name.berries.wicket.reflection.model.ReflectionMetadataProvider;
+import name.berries.wicket.reflection.output.MemoryOutputSink;
+import name.berries.wicket.reflection.output.ZipOutputSink;
+
+/**
+ * Generates components into memory
+ */
+public class TestReflectionUtil
+{
+	private static final List<Class<?>> ENTITIES = Arrays.<Class<?>> asList(ExamplePojo.class,
+		AnotherExamplePojo.class);
+
+	@Test
+	public void generatesAllComponentsOfEntity()
+	{
+		MemoryOutputSink sink = new MemoryOutputSink();
+		ReflectionUtil generator = new ReflectionUtil("/unused", Hook.class);
+		generator.setOutputSink(sink);
+
+		generator.generateAll(ENTITIES);
+
+		// 11 files per entity and common properties
+		assertEquals(23, sink.getFiles().size());
+		assertTrue(sink.exists("examplepojo/EditExamplePojoPanel.java"));
+		assertTrue(sink.exists("anotherexamplepojo/ListAnotherExamplePojoActionsPanel.html"));
+		assertTrue(sink.read("examplepojo/ExamplePojoModel.java", StandardCharsets.UTF_8).toString().contains(
+			"package name.berries.wicket.reflection.example.pojo.gen.examplepojo;"));
+	}
+
+	@Test
+	public void mergesPropertiesOfGeneratedEntities()
+	{
+		MemoryOutputSink sink = new MemoryOutputSink();
+		ReflectionUtil generator = new ReflectionUtil("/unused", Hook.class);
+		generator.setOutputSink(sink);
+		generator.generateAll(ENTITIES);
+
+		generator.createMergedProperties("Application");
+
+		String merged = sink.read("Application.properties", Charset.defaultCharset()).toString();
+		assertEquals(generator.getPropertiesString(EntityMetadata.of(ExamplePojo.class)) + "\n\n" +
+			generator.getPropertiesString(EntityMetadata.of(AnotherExamplePojo.class)) + "\n\n\n", merged);
+		assertFalse(sink.exists("ApplicationResources.java"));
+
+		generator.setResourceBundle(true);
+		generator.createMergedProperties("Application");
+
+		assertEquals(merged, sink.read("Application.properties", Charset.defaultCharset()).toString());
+		assertTrue(sink.read("ApplicationResources.java", StandardCharsets.UTF_8).toString().contains(
+			"public class ApplicationResources extends ListResourceBundle"));
+	}
+
+	@Test
+	public void unchangedEntitiesAreSkipped()
+	{
+		MemoryOutputSink sink = new MemoryOutputSink();
+		ReflectionUtil generator = new ReflectionUtil("/unused", Hook.class);
+		generator.setOutputSink(sink);
+		generator.setIncremental(true);
+
+		generator.generateAll(ENTITIES);
+		assertEquals(23, generator.getStatistics().getWritten());
+
+		GenerationReport report = new GenerationReport();
+		generator.addListener(report);
+		generator.generateAll(ENTITIES);
+		assertEquals(0, generator.getStatistics().getWritten());
+		assertEquals(22, generator.getStatistics().getSkipped());
+		assertEquals(0, report.getWritten());
+		assertEquals(22, report.getSkipped());
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void deprecatedMethodsReadEntityGeneratedLast()
+	{
+		ReflectionUtil generator = new ReflectionUtil("/unused", Hook.class);
+		generator.setOutputSink(new MemoryOutputSink());
+
+		generator.createComponents(ExamplePojo.class);
+
+		EntityMetadata metadata = EntityMetadata.of(ExamplePojo.class);
+		assertEquals(generator.getPropertiesString(metadata), generator.getPropertiesString());
+		assertEquals(metadata.getClassNamespace(), generator.getClassNamespace());
+	}
+
+	@Test
+	public void incrementalGenerationNeedsRewritableSink()
+	{
+		ZipOutputSink sink = new ZipOutputSink(new ByteArrayOutputStream());
+		ReflectionUtil generator = new ReflectionUtil("/unused", Hook.class);
+		generator.setOutputSink(sink);
+		try
+		{
+			generator.setIncremental(true);
+			fail();
+		}
+		catch (IllegalStateException e)
+		{
+			// manifest could not be written twice into the archive
+		}
+
+		generator.setOutputSink(null);
+		generator.setIncremental(true);
+		try
+		{
+			generator.setOutputSink(sink);
+			fail();
+		}
+		catch (IllegalStateException e)
+		{
+			// expected
+		}
+	}
+
+	@Test
+	public void staleEntitiesAreKeptUnlessRemovalIsEnabled()
+	{
+		MemoryOutputSink sink = new MemoryOutputSink();
+		ReflectionUtil generator = new ReflectionUtil("/unused", Hook.class);
+		generator.setOutputSink(sink);
+		generator.setIncremental(true);
+		generator.generateAll(ENTITIES);
+
+		// AnotherExamplePojo is not part of the batch and its class is gone
+		final MetadataProvider reflection = new ReflectionMetadataProvider(getClass().getClassLoader());
+		MetadataProvider provider = new MetadataProvider()
+		{
+			@Override
+			public ClassInfo read(String className)
+			{
+				return reflection.read(className);
+			}
+
+			@Override
+			public boolean exists(String className)
+			{
+				return AnotherExamplePojo.class.getName().equals(className) == false;
+			}
+		};
+		List<String> batch = Arrays.asList(ExamplePojo.class.getName());
+
+		generator.generateAll(provider, batch, null);
+		assertEquals(1, generator.getStatistics().getStale());
+		assertEquals(0, generator.getStatistics().getRemoved());
+		assertTrue(sink.exists("anotherexamplepojo/ListAnotherExamplePojoActionsPanel.html"));
+
+		generator.setRemoveStale(true);
+		generator.generateAll(provider, batch, null);
+		assertEquals(11, generator.getStatistics().getRemoved());
+		assertFalse(sink.exists("anotherexamplepojo/ListAnotherExamplePojoActionsPanel.html"));
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Compiles generated bundles and reads labels from them
+ */
+public class TestResourceBundleGenerator
+{
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void escapedLabelsAreCompiledInChunks() throws Exception
+	{
+		Map<String, String> labels = new LinkedHashMap<String, String>();
+		for (int i = 0; i < 1201; i++)
+		{
+			labels.put("label." + i, "value " + i);
+		}
+		labels.put("entity.name", "Názov €");
+		labels.put("entity.quoted", "\"a\\b\"\ttab\nline");
+
+		String source = ResourceBundleGenerator.generate("fixture", "Labels", labels);
+		for (int i = 0; i < source.length(); i++)
+		{
+			assertTrue(source.charAt(i) < 0x80);
+		}
+		assertTrue(source.contains("private static void init2()"));
+
+		SourceCompiler compiler = new SourceCompiler(folder.getRoot().toPath());
+		compiler.compile(Collections.singletonMap("fixture.Labels", source));
+
+		try (URLClassLoader loader = new URLClassLoader(new URL[] { compiler.getClasses().toUri().toURL() },
+			getClass().getClassLoader()))
+		{
+			ResourceBundle bundle = (ResourceBundle)loader.loadClass(
+				"fixture.Labels").getDeclaredConstructor().newInstance();
+			assertEquals(labels.size(), bundle.keySet().size());
+			for (Map.Entry<String, String> label : labels.entrySet())
+			{
+				assertEquals(label.getValue(), bundle.getString(label.getKey()));
+			}
+		}
+	}
+}
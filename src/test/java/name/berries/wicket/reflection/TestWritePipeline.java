@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import name.berries.wicket.reflection.example.pojo.AnotherExamplePojo;
+import name.berries.wicket.reflection.example.pojo.ExamplePojo;
+import name.berries.wicket.reflection.example.pojo.gen.Hook;
+import name.berries.wicket.reflection.output.MemoryOutputSink;
+
+/**
+ * Writes rendered files by a pool of writers
+ */
+public class TestWritePipeline
+{
+	@Test(timeout = 10000)
+	public void renderersWaitWhileQueueIsFull() throws Exception
+	{
+		final WritePipeline pipeline = new WritePipeline(null, 1, 2);
+		final CountDownLatch writing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger submitted = new AtomicInteger();
+		final AtomicInteger written = new AtomicInteger();
+
+		Thread renderer = new Thread(() -> {
+			for (int i = 0; i < 5; i++)
+			{
+				pipeline.submit(() -> {
+					writing.countDown();
+					await(release);
+					written.incrementAndGet();
+				});
+				submitted.incrementAndGet();
+			}
+		});
+		renderer.start();
+
+		// one file is being written, two are queued, the fourth one waits
+		assertTrue(writing.await(5, TimeUnit.SECONDS));
+		while (submitted.get() < 3)
+		{
+			Thread.sleep(1);
+		}
+		Thread.sleep(100);
+		assertEquals(3, submitted.get());
+		assertEquals(Thread.State.WAITING, renderer.getState());
+
+		release.countDown();
+		renderer.join();
+		pipeline.close();
+		assertEquals(5, written.get());
+	}
+
+	@Test(timeout = 10000)
+	public void firstFailureIsRethrown()
+	{
+		WritePipeline pipeline = new WritePipeline(null, 1, 4);
+		final IllegalStateException first = new IllegalStateException("first");
+		try
+		{
+			pipeline.submit(() -> {
+				throw first;
+			});
+			// fails already when the writer was faster
+			pipeline.submit(() -> {
+				throw new IllegalStateException("second");
+			});
+			pipeline.close();
+			fail();
+		}
+		catch (IllegalStateException e)
+		{
+			assertSame(first, e);
+		}
+
+		try
+		{
+			pipeline.close();
+			fail();
+		}
+		catch (IllegalStateException e)
+		{
+			assertSame(first, e);
+		}
+	}
+
+	@Test
+	public void rejectedWriterFailsThePipeline()
+	{
+		final AtomicInteger started = new AtomicInteger();
+		try
+		{
+			new WritePipeline(command -> {
+				if (started.incrementAndGet() > 1)
+				{
+					throw new RejectedExecutionException();
+				}
+				new Thread(command).start();
+			}, 2, 4);
+			fail();
+		}
+		catch (RejectedExecutionException e)
+		{
+			// expected
+		}
+	}
+
+	@Test(timeout = 30000)
+	public void allFilesAreWrittenBeforeMergedProperties()
+	{
+		final List<String> paths = Collections.synchronizedList(new ArrayList<String>());
+		MemoryOutputSink sink = new MemoryOutputSink()
+		{
+			@Override
+			public boolean write(String path, CharSequence content, Charset charset)
+			{
+				try
+				{
+					// slower than rendering, so the queue fills up
+					Thread.sleep(2);
+				}
+				catch (InterruptedException e)
+				{
+					throw new IllegalStateException(e);
+				}
+				paths.add(path);
+				return super.write(path, content, charset);
+			}
+		};
+		ReflectionUtil generator = new ReflectionUtil("/unused", Hook.class);
+		generator.setOutputSink(sink);
+		generator.setWriterThreads(2);
+
+		generator.generateAll(Arrays.<Class<?>> asList(ExamplePojo.class, AnotherExamplePojo.class));
+		assertEquals(23, paths.size());
+
+		generator.createMergedProperties("Application");
+		assertEquals(24, paths.size());
+		assertEquals("Application.properties", paths.get(23));
+	}
+
+	private static void await(CountDownLatch latch)
+	{
+		try
+		{
+			latch.await();
+		}
+		catch (InterruptedException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.classfile;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import name.berries.wicket.reflection.ReflectionUtil;
+import name.berries.wicket.reflection.SourceCompiler;
+import name.berries.wicket.reflection.example.pojo.AnotherExamplePojo;
+import name.berries.wicket.reflection.example.pojo.ExamplePojo;
+import name.berries.wicket.reflection.example.pojo.gen.Hook;
+import name.berries.wicket.reflection.model.ClassInfo;
+import name.berries.wicket.reflection.model.FieldInfo;
+import name.berries.wicket.reflection.model.ReflectionClassReader;
+import name.berries.wicket.reflection.output.MemoryOutputSink;
+
+/**
+ * Reads class files and compares the result with reflection
+ */
+public class TestClassFileMetadataProvider
+{
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void readsExampleEntitiesAsReflection()
+	{
+		ClassFileMetadataProvider provider = new ClassFileMetadataProvider(getClass().getClassLoader());
+		for (Class<?> entity : Arrays.<Class<?>> asList(ExamplePojo.class, AnotherExamplePojo.class))
+		{
+			assertEquals(describe(ReflectionClassReader.read(entity)), describe(provider.read(entity.getName())));
+		}
+	}
+
+	@Test
+	public void generatesSameComponentsAsReflection()
+	{
+		List<Class<?>> entities = Arrays.<Class<?>> asList(ExamplePojo.class, AnotherExamplePojo.class);
+
+		MemoryOutputSink reflection = new MemoryOutputSink();
+		ReflectionUtil generator = new ReflectionUtil("/unused", Hook.class);
+		generator.setOutputSink(reflection);
+		generator.generateAll(entities);
+
+		MemoryOutputSink classFiles = new MemoryOutputSink();
+		generator = new ReflectionUtil("/unused", Hook.class);
+		generator.setOutputSink(classFiles);
+		generator.generateAll(new ClassFileMetadataProvider(getClass().getClassLoader()),
+			Arrays.asList(ExamplePojo.class.getName(), AnotherExamplePojo.class.getName()), null);
+
+		assertEquals(reflection.getFiles(), classFiles.getFiles());
+	}
+
+	@Test
+	public void readsGenericsNestedTypesEnumsAndAnnotationValues() throws Exception
+	{
+		Map<String, String> sources = new LinkedHashMap<String, String>();
+		sources.put("fixture.Values", "package fixture; import java.lang.annotation.*;"
+			+ " @Retention(RetentionPolicy.RUNTIME) public @interface Values {"
+			+ " int i() default 3; String s() default \"x\"; Class<?> c() default Object.class;"
+			+ " Kind kind() default Kind.A; long[] longs() default {}; Nested nested() default @Nested;"
+			+ " double d() default 1.5; char ch() default 'a'; boolean b() default false;"
+			+ " enum Kind { A, B } }");
+		sources.put("fixture.Nested", "package fixture; import java.lang.annotation.*;"
+			+ " @Retention(RetentionPolicy.RUNTIME) public @interface Nested { String value() default \"d\"; }");
+		sources.put("fixture.Entity", "package fixture; import java.util.*;"
+			+ " @Values(i = 4, c = Entity.Inner.class, nested = @Nested(\"z\"), longs = {1L, 2L})"
+			+ " public class Entity<X extends Number> {"
+			+ " public static class Inner {}"
+			+ " public class Generic<Y> { public class Deeper {} }"
+			+ " @Values(i = 3, s = \"y\", kind = Values.Kind.B, d = 2.5, ch = 'b', b = true, nested = @Nested(\"d\"))"
+			+ " private String annotated;"
+			+ " private List<? extends Number> upper; private Comparator<? super String> lower;"
+			+ " private List<?> unbounded; private List<? extends Object> object;"
+			+ " private Map<String, List<int[]>> map; private X variable; private X[] variables;"
+			+ " private Entity<Integer>.Generic<String>.Deeper deeper; private Inner inner; private Inner[][] inners;"
+			+ " private Values.Kind kind; private Map.Entry<String, Thread.State> entry;"
+			+ " private int[] ints; transient int skipped; static long constant; }");
+
+		SourceCompiler compiler = new SourceCompiler(folder.getRoot().toPath());
+		compiler.compile(sources);
+
+		try (URLClassLoader loader = new URLClassLoader(new URL[] { compiler.getClasses().toUri().toURL() },
+			getClass().getClassLoader()))
+		{
+			ClassFileMetadataProvider provider = new ClassFileMetadataProvider(loader);
+			for (String className : Arrays.asList("fixture.Entity", "fixture.Entity$Inner",
+				"fixture.Entity$Generic$Deeper"))
+			{
+				assertEquals(describe(ReflectionClassReader.read(loader.loadClass(className))),
+					describe(provider.read(className)));
+			}
+		}
+	}
+
+	private static String describe(ClassInfo classInfo)
+	{
+		StringBuilder description = new StringBuilder();
+		description.append(classInfo.getName()).append(' ').append(classInfo.getCanonicalName()).append(' ').append(
+			classInfo.getAnnotations());
+		for (FieldInfo field : classInfo.getFields())
+		{
+			description.append('\n').append(field.getName()).append(' ').append(field.isStaticOrTransient()).append(
+				' ').append(field.getTypeName()).append(' ').append(field.getTypeCanonicalName()).append(' ').append(
+				field.isEnumType()).append(' ').append(field.getGenericTypeName()).append(' ').append(
+				field.getAnnotations());
+		}
+		return description.toString();
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.classfile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import name.berries.wicket.reflection.SourceCompiler;
+
+/**
+ * Scans class files of compiled entities
+ */
+public class TestEntityScanner
+{
+	@ClassRule
+	public static final TemporaryFolder FOLDER = new TemporaryFolder();
+
+	private static Path classes;
+
+	@BeforeClass
+	public static void compileEntities() throws Exception
+	{
+		Map<String, String> sources = new LinkedHashMap<String, String>();
+		sources.put("scan.AnnotatedEntity", "package scan; @javax.persistence.Entity public class AnnotatedEntity {}");
+		sources.put("scan.ComponentsEntity",
+			"package scan; @name.berries.wicket.reflection.annotations.GenerateComponents public class ComponentsEntity {}");
+		sources.put("scan.Plain", "package scan; public class Plain {}");
+		sources.put("scan.AbstractEntity", "package scan; @javax.persistence.Entity public abstract class AbstractEntity {}");
+		sources.put("scan.Outer", "package scan; public class Outer { @javax.persistence.Entity public static class Nested {} }");
+		sources.put("scan.sub.SubEntity", "package scan.sub; @javax.persistence.Entity public class SubEntity {}");
+
+		SourceCompiler compiler = new SourceCompiler(FOLDER.getRoot().toPath());
+		compiler.compile(sources);
+		classes = compiler.getClasses();
+
+		// truncated class file is not an entity, whatever the class scanned before it contained
+		byte[] entity = Files.readAllBytes(classes.resolve("scan/AnnotatedEntity.class"));
+		Files.write(classes.resolve("scan/Truncated.class"), Arrays.copyOf(entity, entity.length - 4));
+	}
+
+	@Test
+	public void findsAnnotatedConcreteTopLevelClasses() throws Exception
+	{
+		assertEquals(Arrays.asList("scan.AnnotatedEntity", "scan.ComponentsEntity", "scan.sub.SubEntity"),
+			new EntityScanner().scan(classes));
+	}
+
+	@Test
+	public void findsAllConcreteTopLevelClassesWithoutAnnotations() throws Exception
+	{
+		assertEquals(Arrays.asList("scan.AnnotatedEntity", "scan.ComponentsEntity", "scan.Outer", "scan.Plain",
+			"scan.sub.SubEntity"), new EntityScanner(new String[0]).scan(classes));
+	}
+
+	@Test
+	public void scansOnlyTheGivenPackage() throws Exception
+	{
+		try (URLClassLoader loader = new URLClassLoader(new URL[] { classes.toUri().toURL() }, null))
+		{
+			assertEquals(Arrays.asList("scan.AnnotatedEntity", "scan.ComponentsEntity"),
+				new EntityScanner().scanPackage(loader, "scan"));
+		}
+	}
+
+	@Test
+	public void tellsSingleClassFile() throws Exception
+	{
+		EntityScanner scanner = new EntityScanner();
+		assertTrue(scanner.isEntity(classes.resolve("scan/AnnotatedEntity.class")));
+		assertFalse(scanner.isEntity(classes.resolve("scan/Plain.class")));
+		assertFalse(scanner.isEntity(classes.resolve("scan/Truncated.class")));
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Writes files into a directory only when their content changed
+ */
+public class TestFileSystemOutputSink
+{
+	private static final FileTime OLD = FileTime.fromMillis(1000000000000L);
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void unchangedFileIsNotWritten() throws IOException
+	{
+		Path file = assertUnchangedFileIsNotWritten("name=Název\n");
+
+		// no temporary file was created in the directory either
+		assertEquals(OLD, Files.getLastModifiedTime(file.getParent()));
+	}
+
+	@Test
+	public void unchangedLargeFileIsNotWritten() throws IOException
+	{
+		assertUnchangedFileIsNotWritten(largeContent('a'));
+	}
+
+	@Test
+	public void changedFileIsReplaced() throws IOException
+	{
+		assertChangedFileIsReplaced("name=Name\n", "name=Název\n");
+		assertChangedFileIsReplaced("name=Name\n", "name=Nam\n");
+	}
+
+	@Test
+	public void changedLargeFileIsReplaced() throws IOException
+	{
+		assertChangedFileIsReplaced(largeContent('a'), largeContent('b'));
+		assertChangedFileIsReplaced("name=Name\n", largeContent('a'));
+	}
+
+	private Path assertUnchangedFileIsNotWritten(String content) throws IOException
+	{
+		Path root = folder.newFolder().toPath();
+		FileSystemOutputSink sink = new FileSystemOutputSink(root);
+		assertTrue(sink.write("entity/Entity.properties", content, StandardCharsets.UTF_8));
+		Path file = root.resolve("entity/Entity.properties");
+		Files.setLastModifiedTime(file, OLD);
+		Files.setLastModifiedTime(file.getParent(), OLD);
+
+		assertFalse(sink.write("entity/Entity.properties", content, StandardCharsets.UTF_8));
+
+		assertEquals(OLD, Files.getLastModifiedTime(file));
+		assertEquals(content, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+		assertOnlyFile(file);
+		return file;
+	}
+
+	private void assertChangedFileIsReplaced(String previous, String content) throws IOException
+	{
+		Path root = folder.newFolder().toPath();
+		FileSystemOutputSink sink = new FileSystemOutputSink(root);
+		assertTrue(sink.write("entity/Entity.properties", previous, StandardCharsets.UTF_8));
+
+		assertTrue(sink.write("entity/Entity.properties", content, StandardCharsets.UTF_8));
+
+		Path file = root.resolve("entity/Entity.properties");
+		assertArrayEquals(content.getBytes(StandardCharsets.UTF_8), Files.readAllBytes(file));
+		assertOnlyFile(file);
+	}
+
+	private static void assertOnlyFile(Path file) throws IOException
+	{
+		try (Stream<Path> files = Files.list(file.getParent()))
+		{
+			assertEquals(Arrays.asList(file), Arrays.asList(files.toArray()));
+		}
+	}
+
+	private static String largeContent(char c)
+	{
+		char[] content = new char[1024 * 1024];
+		Arrays.fill(content, c);
+		return new String(content);
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import name.berries.wicket.reflection.ReflectionTemplate;
+import name.berries.wicket.reflection.ReflectionUtil;
+import name.berries.wicket.reflection.SourceCompiler;
+import name.berries.wicket.reflection.output.MemoryOutputSink;
+
+/**
+ * Generates components during compilation and compares them with the components generated by
+ * reflection
+ */
+public class TestComponentProcessor
+{
+	private static final String ENTITY = "package proc;"
+		+ " import java.math.BigDecimal; import java.util.*; import javax.persistence.*;"
+		+ " import name.berries.wicket.reflection.annotations.*;"
+		+ " @GenerateComponents(outputPackage = \"proc.gen\")"
+		+ " public class Customer {"
+		+ " private static final long serialVersionUID = 1L;"
+		+ " @Order(2) private String name;"
+		+ " @Order(1) @Column(length = 100, nullable = false) private String code;"
+		+ " private Integer age; private BigDecimal balance; private Date created; private boolean active;"
+		+ " private Thread.State state; @SkipField private String secret; private List<String> tags; }";
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void generatesSameComponentsAsReflection() throws Exception
+	{
+		SourceCompiler compiler = new SourceCompiler(folder.getRoot().toPath());
+		Map<String, String> sources = Collections.singletonMap("proc.Customer", ENTITY);
+		compiler.compile(sources);
+		compiler.process(sources, new ComponentProcessor());
+
+		MemoryOutputSink sink = new MemoryOutputSink();
+		try (URLClassLoader loader = new URLClassLoader(new URL[] { compiler.getClasses().toUri().toURL() },
+			getClass().getClassLoader()))
+		{
+			ReflectionUtil generator = new ReflectionUtil(sink, "proc.gen", ReflectionTemplate.BOOTSTRAP_HORIZONTAL);
+			generator.createComponents(loader.loadClass("proc.Customer"));
+		}
+
+		Map<String, String> expected = new TreeMap<String, String>();
+		for (Map.Entry<String, CharSequence> file : sink.getFiles().entrySet())
+		{
+			expected.put(file.getKey(), file.getValue().toString());
+		}
+
+		// sources are generated among the sources, markup and properties among the classes
+		Map<String, String> generated = new TreeMap<String, String>();
+		readFiles(compiler.getGenerated().resolve("proc/gen"), generated);
+		readFiles(compiler.getClasses().resolve("proc/gen"), generated);
+
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, generated);
+	}
+
+	private static void readFiles(Path root, Map<String, String> files) throws Exception
+	{
+		try (Stream<Path> paths = Files.walk(root))
+		{
+			for (Path file : (Iterable<Path>)paths::iterator)
+			{
+				String path = root.relativize(file).toString().replace('\\', '/');
+				if (Files.isRegularFile(file) && path.endsWith(".class") == false)
+				{
+					// properties are written in platform encoding, as by the generator
+					Charset charset = path.endsWith(".properties") ? Charset.defaultCharset() : StandardCharsets.UTF_8;
+					files.put(path, new String(Files.readAllBytes(file), charset));
+				}
+			}
+		}
+	}
+}
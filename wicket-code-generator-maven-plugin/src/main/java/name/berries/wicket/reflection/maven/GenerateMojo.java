@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package name.berries.wicket.reflection.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.Scanner;
+import org.sonatype.plexus.build.incremental.BuildContext;
+
+import name.berries.wicket.reflection.ClassFinder;
+import name.berries.wicket.reflection.GenerationReport;
+import name.berries.wicket.reflection.ReflectionTemplate;
+import name.berries.wicket.reflection.ReflectionUtil;
+import name.berries.wicket.reflection.output.FileSystemOutputSink;
+
+/**
+ * Generates the components of the entities compiled into {@link #classesDirectory}, usually
+ * <code>target/classes</code> of the domain module. Generated sources are added to the compile
+ * source roots, markup and properties to the resources.
+ * <p>
+ * Generation runs in the incremental mode of {@link ReflectionUtil}, only entities whose field
+ * model or templates changed are rendered again. In an incremental build of the IDE the
+ * generation is skipped altogether when no class file of {@link #classesDirectory} changed.
+ *
+ * <pre>
+ * &lt;plugin&gt;
+ *     &lt;groupId&gt;name.berries&lt;/groupId&gt;
+ *     &lt;artifactId&gt;wicket-code-generator-maven-plugin&lt;/artifactId&gt;
+ *     &lt;executions&gt;
+ *         &lt;execution&gt;
+ *             &lt;goals&gt;&lt;goal&gt;generate&lt;/goal&gt;&lt;/goals&gt;
+ *             &lt;configuration&gt;
+ *                 &lt;classesDirectory&gt;../domain/target/classes&lt;/classesDirectory&gt;
+ *                 &lt;outputPackage&gt;com.example.web.gen&lt;/outputPackage&gt;
+ *                 &lt;entities&gt;&lt;entity&gt;com.example.domain&lt;/entity&gt;&lt;/entities&gt;
+ *                 &lt;applicationName&gt;WicketApplication&lt;/applicationName&gt;
+ *             &lt;/configuration&gt;
+ *         &lt;/execution&gt;
+ *     &lt;/executions&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ *
+ * @author rozkovec
+ */
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.GENERATE_SOURCES, requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true)
+public class GenerateMojo extends AbstractMojo
+{
+	private static final String[] CLASS_FILES = { "**/*.class" };
+
+	/**
+	 * Compiled entities, e.g. <code>target/classes</code> of the domain module.
+	 */
+	@Parameter(required = true)
+	private File classesDirectory;
+
+	/**
+	 * Entity classes or packages, sub packages are not searched.
+	 */
+	@Parameter(required = true)
+	private List<String> entities;
+
+	/**
+	 * Package of the generated components.
+	 */
+	@Parameter(required = true)
+	private String outputPackage;
+
+	/**
+	 * Root of the generated sources.
+	 */
+	@Parameter(defaultValue = "${project.build.directory}/generated-sources/wicket-generator", required = true)
+	private File outputDirectory;
+
+	/**
+	 * BOOTSTRAP_HORIZONTAL, BOOTSTRAP_HORIZONTAL_AJAX or BOOTSTRAP_VERTICAL.
+	 */
+	@Parameter(defaultValue = "BOOTSTRAP_HORIZONTAL")
+	private String template;
+
+	/**
+	 * Factory of the entities.
+	 */
+	@Parameter
+	private String factory;
+
+	/**
+	 * Writes merged properties named after the application class.
+	 */
+	@Parameter
+	private String applicationName;
+
+	/**
+	 * Number of entities generated concurrently, number of processors when not set.
+	 */
+	@Parameter
+	private int parallelism;
+
+	/**
+	 * Deletes components of entities whose class was removed from {@link #classesDirectory}, they
+	 * are only reported otherwise.
+	 */
+	@Parameter(defaultValue = "false")
+	private boolean removeStale;
+
+	/**
+	 * Logs where the time was spent.
+	 */
+	@Parameter(defaultValue = "false")
+	private boolean report;
+
+	@Parameter(property = "wicket.generator.skip", defaultValue = "false")
+	private boolean skip;
+
+	@Parameter(defaultValue = "${project}", readonly = true, required = true)
+	private MavenProject project;
+
+	@Component
+	private BuildContext buildContext;
+
+	@Override
+	public void execute() throws MojoExecutionException, MojoFailureException
+	{
+		if (skip)
+		{
+			getLog().info("Generation is skipped.");
+			return;
+		}
+		if (classesDirectory.isDirectory() == false)
+		{
+			throw new MojoFailureException("Classes directory " + classesDirectory
+				+ " does not exist, compile the entities first.");
+		}
+
+		addOutputRoots();
+
+		if (hasChangedClasses() == false)
+		{
+			getLog().info("No class changed in " + classesDirectory + ", generation is skipped.");
+			return;
+		}
+
+		ReflectionTemplate reflectionTemplate = parseTemplate();
+		try (URLClassLoader loader = newClassLoader())
+		{
+			generate(loader, reflectionTemplate);
+		}
+		catch (IOException e)
+		{
+			throw new MojoExecutionException("Failed to close class loader of " + classesDirectory, e);
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new MojoFailureException(e.getMessage(), e);
+		}
+		catch (RuntimeException e)
+		{
+			throw new MojoExecutionException("Generation failed", e);
+		}
+
+		buildContext.refresh(outputDirectory);
+	}
+
+	private void generate(ClassLoader loader, ReflectionTemplate reflectionTemplate) throws MojoFailureException
+	{
+		List<Class<?>> classes = new ClassFinder(loader).find(entities);
+
+		File packageDirectory = new File(outputDirectory, outputPackage.replace('.', File.separatorChar));
+		ReflectionUtil ref = new ReflectionUtil(new FileSystemOutputSink(packageDirectory.toPath()), outputPackage,
+			reflectionTemplate);
+		ref.setIncremental(true);
+		ref.setRemoveStale(removeStale);
+		if (parallelism > 0)
+		{
+			ref.setParallelism(parallelism);
+		}
+
+		GenerationReport generationReport = null;
+		if (report)
+		{
+			generationReport = new GenerationReport();
+			ref.addListener(generationReport);
+		}
+
+		ref.generateAll(classes, factory != null ? loadClass(loader, factory) : null);
+
+		if (applicationName != null)
+		{
+			ref.createMergedProperties(applicationName);
+		}
+
+		if (generationReport != null)
+		{
+			getLog().info(generationReport.toString());
+		}
+	}
+
+	/**
+	 * Generated sources are compiled, markup and properties are copied with the classes.
+	 */
+	private void addOutputRoots()
+	{
+		String root = outputDirectory.getAbsolutePath();
+		if (project.getCompileSourceRoots().contains(root))
+		{
+			return;
+		}
+		project.addCompileSourceRoot(root);
+
+		Resource resource = new Resource();
+		resource.setDirectory(root);
+		resource.addExclude("**/*.java");
+		project.addResource(resource);
+	}
+
+	/**
+	 * @return <code>false</code> only in an incremental build where no class file was changed or
+	 *         deleted, full builds always generate
+	 */
+	private boolean hasChangedClasses()
+	{
+		if (buildContext.isIncremental() == false)
+		{
+			return true;
+		}
+		return hasFiles(buildContext.newScanner(classesDirectory))
+			|| hasFiles(buildContext.newDeleteScanner(classesDirectory));
+	}
+
+	private static boolean hasFiles(Scanner scanner)
+	{
+		scanner.setIncludes(CLASS_FILES);
+		scanner.scan();
+		return scanner.getIncludedFiles().length > 0;
+	}
+
+	/**
+	 * Entities are loaded from {@link #classesDirectory} together with the compile classpath of
+	 * the project, the generator itself from the class loader of the plugin.
+	 */
+	private URLClassLoader newClassLoader() throws MojoExecutionException
+	{
+		List<String> elements;
+		try
+		{
+			elements = project.getCompileClasspathElements();
+		}
+		catch (DependencyResolutionRequiredException e)
+		{
+			throw new MojoExecutionException("Compile classpath is not resolved", e);
+		}
+
+		List<URL> urls = new ArrayList<URL>(elements.size() + 1);
+		try
+		{
+			urls.add(classesDirectory.toURI().toURL());
+			for (String element : elements)
+			{
+				urls.add(new File(element).toURI().toURL());
+			}
+		}
+		catch (MalformedURLException e)
+		{
+			throw new MojoExecutionException("Invalid classpath element", e);
+		}
+		return new URLClassLoader(urls.toArray(new URL[urls.size()]), getClass().getClassLoader());
+	}
+
+	private ReflectionTemplate parseTemplate() throws MojoFailureException
+	{
+		try
+		{
+			return ReflectionTemplate.valueOf(template.toUpperCase(Locale.ROOT));
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new MojoFailureException("Unknown template " + template);
+		}
+	}
+
+	private static Class<?> loadClass(ClassLoader loader, String className) throws MojoFailureException
+	{
+		try
+		{
+			return Class.forName(className, false, loader);
+		}
+		catch (ClassNotFoundException e)
+		{
+			throw new MojoFailureException("Class not found: " + className);
+		}
+	}
+}